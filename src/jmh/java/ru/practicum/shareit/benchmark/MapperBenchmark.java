@@ -0,0 +1,89 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.dto.InwardBookingMapper;
+import ru.practicum.shareit.booking.dto.InwardBookingMapperImpl;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.dto.OutwardBookingMapper;
+import ru.practicum.shareit.booking.dto.OutwardBookingMapperImpl;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemMapperImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the generated MapStruct mappers on the request paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+    private final ItemMapper itemMapper = new ItemMapperImpl();
+    private final OutwardBookingMapper outwardBookingMapper = new OutwardBookingMapperImpl();
+    private final InwardBookingMapper inwardBookingMapper = new InwardBookingMapperImpl();
+    private User owner;
+    private User booker;
+    private Item item;
+    private ItemDto itemDto;
+    private Booking last;
+    private Booking next;
+    private List<ItemCommentDto> comments;
+    private InwardBookingDto inwardBookingDto;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        owner = User.builder().id(1L).name("owner").email("owner@javabeans.com").build();
+        booker = User.builder().id(2L).name("booker").email("booker@javabeans.com").build();
+        item = Item.builder().id(10L).name("drill").description("cordless drill").available(true).user(owner)
+            .build();
+        itemDto = ItemDto.builder().name("saw").description("circular saw").available(true).build();
+        last = Booking.builder().id(100L).start(now.minusDays(2)).end(now.minusDays(1)).item(item).booker(booker)
+            .status(Status.APPROVED).build();
+        next = Booking.builder().id(101L).start(now.plusDays(1)).end(now.plusDays(2)).item(item).booker(booker)
+            .status(Status.WAITING).build();
+        comments = List.of(new ItemCommentDto(1000L, 10L, "great drill", 2L, "booker", now.minusHours(1)));
+        inwardBookingDto = InwardBookingDto.builder().itemId(10L).start(now.plusDays(3)).end(now.plusDays(4)).build();
+    }
+
+    @Benchmark
+    public ItemDto itemToDto() {
+        return itemMapper.toDto(item, owner, last, next, comments);
+    }
+
+    @Benchmark
+    public Item itemToEntity() {
+        return itemMapper.toEntity(itemDto, 1L);
+    }
+
+    @Benchmark
+    public OutwardBookingDto bookingToDto() {
+        return outwardBookingMapper.toDto(last);
+    }
+
+    @Benchmark
+    public Booking bookingToEntity() {
+        return inwardBookingMapper.toEntity(inwardBookingDto, item, booker);
+    }
+}
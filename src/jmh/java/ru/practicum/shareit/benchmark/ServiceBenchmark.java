@@ -0,0 +1,142 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.item.search.TrigramItemSearch;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking and item service paths against an embedded H2 seeded with {@code items} items, each owner holding
+ * ten of them and every item booked {@link #BOOKINGS_PER_ITEM} times by one booker.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+    private static final int ITEMS_PER_OWNER = 10;
+    private static final int BOOKINGS_PER_ITEM = 5;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Param({"100", "1000", "10000"})
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private long bookingId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .run("--spring.datasource.url=jdbc:h2:mem:jmh-" + items + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(BookingIntervalIndex.class).rebuild();
+        if (context.getBean(ItemSearch.class) instanceof TrigramItemSearch trigramItemSearch) {
+            trigramItemSearch.rebuild();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> getOwnerItems() {
+        return itemService.getItems(ownerId);
+    }
+
+    @Benchmark
+    public ItemDto getItem() {
+        return itemService.getItem(itemId, ownerId);
+    }
+
+    @Benchmark
+    public List<ItemDto> findItems() {
+        return itemService.findItems("item " + (items / 2));
+    }
+
+    @Benchmark
+    public OutwardBookingDto getBooking() {
+        return bookingService.getBooking(bookingId, bookerId);
+    }
+
+    @Benchmark
+    public List<OutwardBookingDto> getUserBookingsFirstPage() {
+        return bookingService.getUserBookings(bookerId, State.ALL, BookingCursor.FIRST, 20);
+    }
+
+    @Benchmark
+    public List<OutwardBookingDto> getOwnerBookings() {
+        return bookingService.getOwnerBookings(ownerId, State.ALL, BookingCursor.FIRST, null);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        int owners = Math.max(1, items / ITEMS_PER_OWNER);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i <= owners; i++) {
+            users.add(new Object[]{"user " + i, "user" + i + "@bench"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (name, email) values (?, ?)", users);
+        bookerId = jdbcTemplate.queryForObject("select min(id) from users", Long.class);
+        ownerId = bookerId + 1;
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            rows.add(new Object[]{"Item " + i, "Description of item " + i, ownerId + i % owners, true});
+        }
+        jdbcTemplate.batchUpdate("insert into item (name, description, owner_id, available) values (?, ?, ?, ?)",
+            rows);
+        itemId = jdbcTemplate.queryForObject("select min(id) from item where owner_id = ?", Long.class, ownerId);
+
+        List<Object[]> bookings = new ArrayList<>();
+        for (long item = itemId; item < itemId + items; item++) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                LocalDateTime start = EPOCH.plusDays(i * 2L);
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), item,
+                    bookerId, "APPROVED"});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into booking (start_date, end_date, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?)", bookings);
+        bookingId = jdbcTemplate.queryForObject("select min(id) from booking where item_id = ?", Long.class, itemId);
+    }
+}
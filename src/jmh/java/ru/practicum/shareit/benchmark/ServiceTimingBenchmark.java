@@ -0,0 +1,83 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.ReadYourWrites;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
+import ru.practicum.shareit.metrics.ServiceTimingAspect;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapperImpl;
+import ru.practicum.shareit.user.principal.UserExistenceCache;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of {@link ServiceTimingAspect}: the same trivial service call with and without the timing proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ServiceTimingBenchmark {
+    private UserService plain;
+    private UserService timed;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = stub(UserRepository.class);
+        UserExistenceCache userExistenceCache =
+            new UserExistenceCache(userRepository, 16, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        BookingRepository bookingRepository = stub(BookingRepository.class);
+        ItemRepository itemRepository = stub(ItemRepository.class);
+        Shards shards = new Shards(List.of(), List.of());
+        plain = new UserServiceImpl(userRepository, stub(CommentRepository.class), itemRepository, bookingRepository,
+            new BookingIntervalIndex(bookingRepository, shards),
+            new ItemBookingPointers(itemRepository, bookingRepository, shards), stub(ItemSearch.class),
+            new UserMapperImpl(), userExistenceCache, new ReadYourWrites(Duration.ofSeconds(5)), shards);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(plain);
+        proxyFactory.addAspect(new ServiceTimingAspect(new SimpleMeterRegistry()));
+        timed = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public List<UserDto> plainCall() {
+        return plain.getUsers();
+    }
+
+    @Benchmark
+    public List<UserDto> timedCall() {
+        return timed.getUsers();
+    }
+
+    /**
+     * A repository or collaborator whose every method returns an empty list, enough for the calls benchmarked here.
+     */
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(ServiceTimingBenchmark.class.getClassLoader(),
+            new Class<?>[]{type}, (proxy, method, args) -> List.of()));
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemStubRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserStubRepository;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters of the in-memory stub repositories at several catalogue sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StubRepositoryBenchmark {
+    private static final int USERS = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int items;
+
+    private ItemStubRepository itemStubRepository;
+    private UserStubRepository userStubRepository;
+    private long ownerId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        userStubRepository = new UserStubRepository();
+        itemStubRepository = new ItemStubRepository(userStubRepository);
+        for (int i = 0; i < USERS; i++) {
+            userStubRepository.save(User.builder().name("user " + i).email("user" + i + "@javabeans.com").build());
+        }
+        for (int i = 0; i < items; i++) {
+            Item item = Item.builder().name("Item " + i).description("Description of item " + i + " sku" + i)
+                .available(random.nextInt(10) != 0)
+                .user(User.builder().id((long) random.nextInt(USERS) + 1).build())
+                .build();
+            itemStubRepository.save(item);
+        }
+        ownerId = USERS / 2;
+    }
+
+    @Benchmark
+    public List<Item> searchSelective() {
+        return itemStubRepository.findByNameOrDescriptionAndAvailable("SKU" + (items / 2));
+    }
+
+    @Benchmark
+    public List<Item> searchCommon() {
+        return itemStubRepository.findByNameOrDescriptionAndAvailable("item 1");
+    }
+
+    @Benchmark
+    public List<Item> findByUserId() {
+        return itemStubRepository.findAllByUserId(ownerId);
+    }
+
+    @Benchmark
+    public User getUser() {
+        return userStubRepository.findById(ownerId).orElseThrow();
+    }
+}
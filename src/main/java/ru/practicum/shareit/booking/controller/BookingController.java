@@ -1,62 +1,123 @@
 package ru.practicum.shareit.booking.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.InwardBookingDto;
 import ru.practicum.shareit.booking.dto.OutwardBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+import ru.practicum.shareit.user.principal.SharerUser;
 
 import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor(onConstructor_ = @__(@Autowired))
-@Slf4j
 @Validated
 public class BookingController {
-    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final long MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
     private final BookingService bookingService;
 
     @PostMapping
-    public ResponseEntity addBooking(@RequestBody @NotNull @Valid InwardBookingDto inwardBookingDto, @RequestHeader(USER_ID_HEADER) @NotNull Long userId) {
-        OutwardBookingDto created = bookingService.addBooking(inwardBookingDto, userId);
-        log.info("BookingDto created: {}", created.toString());
+    public ResponseEntity addBooking(@RequestBody @NotNull @Valid InwardBookingDto inwardBookingDto, @SharerUser(verified = false) SharerPrincipal sharer) {
+        OutwardBookingDto created = bookingService.addBooking(inwardBookingDto, sharer.id());
         return new ResponseEntity(created, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> addBookings(@RequestBody @NotNull @Size(min = 1, max = MAX_BATCH_SIZE) List<InwardBookingDto> inwardBookingDtos,
+                                                                   @SharerUser(verified = false) SharerPrincipal sharer) {
+        List<BookingBatchResultDto> results = bookingService.addBookings(inwardBookingDtos, sharer.id());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<OutwardBookingDto> approveBooking(@RequestHeader(USER_ID_HEADER) @NotNull Long userId, @PathVariable Long bookingId, @RequestParam Boolean approved) {
-        OutwardBookingDto updated = bookingService.approveBooking(bookingId, userId, approved);
-        log.info("OutwardBookingDto updated: {}", updated.toString());
+    public ResponseEntity<OutwardBookingDto> approveBooking(@SharerUser(verified = false) SharerPrincipal sharer, @PathVariable Long bookingId, @RequestParam Boolean approved) {
+        OutwardBookingDto updated = bookingService.approveBooking(bookingId, sharer.id(), approved);
         return new ResponseEntity<>(updated, HttpStatus.OK);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<OutwardBookingDto> getBooking(@RequestHeader(USER_ID_HEADER) @NotNull Long userId, @PathVariable Long bookingId) {
-        OutwardBookingDto found = bookingService.getBooking(bookingId, userId);
-        log.info("OutwardBookingDto found {}: ", found.toString());
-        return new ResponseEntity<>(found, HttpStatus.OK);
+    public ResponseEntity<OutwardBookingDto> getBooking(@SharerUser(verified = false) SharerPrincipal sharer, @PathVariable Long bookingId,
+                                                        WebRequest request) {
+        OutwardBookingDto found = bookingService.getBooking(bookingId, sharer.id());
+        String tag = EntityTags.of(found);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(tag).body(found);
     }
 
     @GetMapping
-    public ResponseEntity<List<OutwardBookingDto>> getUserBookings(@RequestHeader(USER_ID_HEADER) @NotNull Long userId, @RequestParam(required = false, defaultValue = "ALL") State state) {
-        List<OutwardBookingDto> found = bookingService.getUserBookings(userId, state);
-        log.info("List<OutwardBookingDto> found: {}", found.toString());
-        return new ResponseEntity<>(found, HttpStatus.OK);
+    public ResponseEntity<List<OutwardBookingDto>> getUserBookings(@SharerUser(verified = false) SharerPrincipal sharer,
+                                                                   @RequestParam(required = false, defaultValue = "ALL") State state,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer size) {
+        List<OutwardBookingDto> found =
+            bookingService.getUserBookings(sharer.id(), state, BookingCursor.decode(cursor), size);
+        return toPageResponse(found, size, BookingCursor::after);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<List> getOwnerBookings(@RequestHeader(USER_ID_HEADER) @NotNull Long userId, @RequestParam(required = false) String state) {
+    public ResponseEntity<List<OutwardBookingDto>> getOwnerBookings(SharerPrincipal sharer,
+                                                                    @RequestParam(required = false) String state,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer size) {
         State queryState = (state == null) ? State.ALL : State.valueOf(state.toUpperCase());
-        List found = bookingService.getOwnerBookings(userId, queryState);
-        log.info("List found: " + found.toString());
-        return new ResponseEntity<>(found, HttpStatus.OK);
+        List<OutwardBookingDto> found =
+            bookingService.getOwnerBookings(sharer.id(), queryState, BookingCursor.decode(cursor), size);
+        return toPageResponse(found, size, BookingCursor::after);
+    }
+
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<BookingRow>> getUserBookings(@SharerUser(verified = false) SharerPrincipal sharer,
+                                                            @RequestParam(required = false, defaultValue = "ALL") State state,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer size,
+                                                            @RequestParam String fields) {
+        List<BookingRow> found = bookingService.getUserBookings(sharer.id(), state, BookingCursor.decode(cursor), size,
+            Projection.parse(fields, BookingField.class));
+        return toPageResponse(found, size, BookingCursor::after);
+    }
+
+    @GetMapping(path = "/owner", params = "fields")
+    public ResponseEntity<List<BookingRow>> getOwnerBookings(SharerPrincipal sharer,
+                                                             @RequestParam(required = false) String state,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer size,
+                                                             @RequestParam String fields) {
+        State queryState = (state == null) ? State.ALL : State.valueOf(state.toUpperCase());
+        List<BookingRow> found = bookingService.getOwnerBookings(sharer.id(), queryState,
+            BookingCursor.decode(cursor), size, Projection.parse(fields, BookingField.class));
+        return toPageResponse(found, size, BookingCursor::after);
+    }
+
+    private static <T> ResponseEntity<List<T>> toPageResponse(List<T> found, Integer size,
+                                                              Function<T, BookingCursor> after) {
+        HttpHeaders headers = new HttpHeaders();
+        if (size != null && found.size() == size) {
+            headers.set(NEXT_CURSOR_HEADER, after.apply(found.get(found.size() - 1)).encode());
+        }
+        return new ResponseEntity<>(found, headers, HttpStatus.OK);
     }
 }
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.projection.ProjectedField;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The fields of {@link OutwardBookingDto} a booking listing can be narrowed to. The expressions refer to the
+ * booking as {@code b}, its item as {@code i} and its booker as {@code bk}, the latter two joined only when
+ * selected.
+ */
+public enum BookingField implements ProjectedField<OutwardBookingDto> {
+    ID("id", OutwardBookingDto::getId, "b.id"),
+    START("start", OutwardBookingDto::getStart, "b.start"),
+    END("end", OutwardBookingDto::getEnd, "b.end"),
+    ITEM("item", OutwardBookingDto::getItem, "i.id", "i.name") {
+        @Override
+        public Object value(Object[] row, int from) {
+            return new BookedItemDto((Long) row[from], (String) row[from + 1]);
+        }
+    },
+    BOOKER("booker", OutwardBookingDto::getBooker, "bk.id", "bk.name") {
+        @Override
+        public Object value(Object[] row, int from) {
+            return new BookerDto((Long) row[from], (String) row[from + 1]);
+        }
+    },
+    STATUS("status", OutwardBookingDto::getStatus, "b.status");
+
+    private final String fieldName;
+    private final Function<OutwardBookingDto, Object> getter;
+    private final List<String> expressions;
+
+    BookingField(String fieldName, Function<OutwardBookingDto, Object> getter, String... expressions) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.expressions = List.of(expressions);
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public List<String> expressions() {
+        return expressions;
+    }
+
+    @Override
+    public Object value(OutwardBookingDto source) {
+        return getter.apply(source);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A booking of a sparse listing: the selected fields, rendered as they are, and the start and id the listing is
+ * ordered and paged by, which are read whether selected or not.
+ */
+public record BookingRow(LocalDateTime start, Long id, @JsonValue Map<String, Object> fields) {
+}
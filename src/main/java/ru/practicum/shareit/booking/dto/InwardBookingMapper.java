@@ -15,5 +15,6 @@ public interface InwardBookingMapper {
     @Mapping(target = "item", source = "item")
     @Mapping(target = "booker", source = "user")
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Booking toEntity(InwardBookingDto inwardBookingDto, Item item, User user);
 }
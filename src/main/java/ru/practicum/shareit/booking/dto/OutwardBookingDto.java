@@ -1,23 +1,31 @@
 package ru.practicum.shareit.booking.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.model.Status;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
 /**
- * TODO Sprint add-bookings.
+ * Booking as returned by the API. Item and booker are flattened to id and name, so the read queries select
+ * scalar columns only and serialization never touches a lazy association.
  */
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class OutwardBookingDto {
     private Long id;
     private LocalDateTime start;
     private LocalDateTime end;
-    private Item item;
-    private User booker;
+    private BookedItemDto item;
+    private BookerDto booker;
     private Status status;
+
+    public OutwardBookingDto(Long id, LocalDateTime start, LocalDateTime end, Long itemId, String itemName,
+                             Long bookerId, String bookerName, Status status) {
+        this(id, start, end, new BookedItemDto(itemId, itemName), new BookerDto(bookerId, bookerName), status);
+    }
 }
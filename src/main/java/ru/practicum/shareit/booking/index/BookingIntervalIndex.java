@@ -0,0 +1,193 @@
+package ru.practicum.shareit.booking.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.exception.NotAvailableException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.Shards;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process index of the time slots held by {@link Status#WAITING} and {@link Status#APPROVED} bookings,
+ * one interval tree per item. The index is seeded from the database at startup and kept current by the
+ * booking service, so conflicting requests are rejected without a database round trip. It only sees writes
+ * made through this instance.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    public static final Set<Status> OCCUPYING = EnumSet.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final Shards shards;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        items.clear();
+        int seeded = shards.sum(() -> {
+            List<BookingInterval> occupying = bookingRepository.findAllIntervalsByStatusIn(OCCUPYING);
+            for (BookingInterval interval : occupying) {
+                intervals(interval.itemId()).add(interval.bookingId(), interval.start(), interval.end());
+            }
+            return occupying.size();
+        });
+        log.info("Booking interval index seeded with {} bookings", seeded);
+    }
+
+    public boolean overlaps(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return false;
+        }
+        intervals.lock.lock();
+        try {
+            return intervals.tree.overlaps(start, end);
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code writer} while holding the item's slot, failing with {@link NotAvailableException} when
+     * {@code [start, end)} overlaps a booking already in the index. The written booking is added to the index.
+     */
+    public Booking reserve(Long itemId, LocalDateTime start, LocalDateTime end, Supplier<Booking> writer) {
+        ItemIntervals intervals = intervals(itemId);
+        intervals.lock.lock();
+        try {
+            if (intervals.tree.overlaps(start, end)) {
+                throw new NotAvailableException("Item " + itemId + " is already booked for " + start + " - " + end);
+            }
+            Booking written = writer.get();
+            intervals.add(written.getId(), written.getStart(), written.getEnd());
+            return written;
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Batch form of {@link #reserve}: holds the slots of every involved item, in ascending item id order, while
+     * {@code writer} stores the bookings that overlap neither the index nor an earlier booking of the same batch.
+     * Returns a list aligned with {@code bookings} holding the written booking, or {@code null} for a conflict.
+     */
+    public List<Booking> reserveAll(List<Booking> bookings, UnaryOperator<List<Booking>> writer) {
+        SortedMap<Long, ItemIntervals> involved = new TreeMap<>();
+        for (Booking booking : bookings) {
+            involved.computeIfAbsent(booking.getItem().getId(), this::intervals);
+        }
+        List<ItemIntervals> locked = new ArrayList<>(involved.size());
+        try {
+            for (ItemIntervals intervals : involved.values()) {
+                intervals.lock.lock();
+                locked.add(intervals);
+            }
+            Map<Long, IntervalTree> pending = new HashMap<>();
+            List<Booking> accepted = new ArrayList<>(bookings.size());
+            List<Integer> positions = new ArrayList<>(bookings.size());
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                Long itemId = booking.getItem().getId();
+                IntervalTree batch = pending.computeIfAbsent(itemId, id -> new IntervalTree());
+                if (!involved.get(itemId).tree.overlaps(booking.getStart(), booking.getEnd())
+                    && !batch.overlaps(booking.getStart(), booking.getEnd())) {
+                    batch.insert(-i - 1L, booking.getStart(), booking.getEnd());
+                    accepted.add(booking);
+                    positions.add(i);
+                }
+            }
+            List<Booking> results = new ArrayList<>(Collections.nCopies(bookings.size(), null));
+            if (accepted.isEmpty()) {
+                return results;
+            }
+            List<Booking> written = writer.apply(accepted);
+            for (int i = 0; i < written.size(); i++) {
+                Booking booking = written.get(i);
+                involved.get(booking.getItem().getId()).add(booking.getId(), booking.getStart(), booking.getEnd());
+                results.set(positions.get(i), booking);
+            }
+            return results;
+        } finally {
+            for (ItemIntervals intervals : locked) {
+                intervals.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code writer} for a booking whose status moves from {@code previous} to {@code booking.getStatus()},
+     * reserving or releasing its slot when the transition changes whether the booking holds the item.
+     */
+    public Booking transition(Booking booking, Status previous, Supplier<Booking> writer) {
+        boolean wasOccupying = OCCUPYING.contains(previous);
+        boolean occupies = OCCUPYING.contains(booking.getStatus());
+        Long itemId = booking.getItem().getId();
+        if (!wasOccupying && occupies) {
+            return reserve(itemId, booking.getStart(), booking.getEnd(), writer);
+        }
+        Booking written = writer.get();
+        if (wasOccupying && !occupies) {
+            release(itemId, written.getId());
+        }
+        return written;
+    }
+
+    public void release(Long itemId, Long bookingId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return;
+        }
+        intervals.lock.lock();
+        try {
+            intervals.remove(bookingId);
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    private ItemIntervals intervals(Long itemId) {
+        return items.computeIfAbsent(itemId, id -> new ItemIntervals());
+    }
+
+    private static final class ItemIntervals {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final IntervalTree tree = new IntervalTree();
+        private final Map<Long, LocalDateTime> starts = new HashMap<>();
+
+        private void add(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            LocalDateTime previous = starts.put(bookingId, start);
+            if (previous != null) {
+                tree.remove(bookingId, previous);
+            }
+            tree.insert(bookingId, start, end);
+        }
+
+        private void remove(Long bookingId) {
+            LocalDateTime start = starts.remove(bookingId);
+            if (start != null) {
+                tree.remove(bookingId, start);
+            }
+        }
+    }
+}
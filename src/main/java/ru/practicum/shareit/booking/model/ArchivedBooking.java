@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@link Booking} that ended before the archive horizon, moved to {@code BOOKING_ARCHIVE} with its id and
+ * version unchanged. Rows are only written by the archival job and never change afterwards.
+ */
+@Entity
+@Immutable
+@Table(name = "BOOKING_ARCHIVE")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedBooking {
+    @Id
+    private Long id;
+    @Column(name = "START_DATE")
+    private LocalDateTime start;
+    @Column(name = "END_DATE")
+    private LocalDateTime end;
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "ITEM_ID", referencedColumnName = "ID", nullable = false, updatable = false)
+    private Item item;
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "BOOKER_ID", referencedColumnName = "ID", nullable = false, updatable = false)
+    private User booker;
+    @Enumerated(value = EnumType.STRING)
+    private Status status;
+    private Long version;
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Limit;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.projection.Projection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The booking listings narrowed to a sparse fieldset: the same filters, order and keyset paging as the
+ * {@code findAllByUserId*} and {@code findAllByOwnerId*} queries, selecting only the projected columns and joining
+ * the item and the booker only when one of their fields is selected or the filter needs them.
+ */
+public interface BookingProjectionRepository {
+    /**
+     * The bookings of {@code userId} in {@code state}, from the archive when {@code archived}, which only holds
+     * past bookings and so only applies the status filter of {@code state}.
+     */
+    List<BookingRow> findProjectedByUserId(Projection<OutwardBookingDto, BookingField> projection, Long userId,
+                                           State state, boolean archived, LocalDateTime cursorStart, Long cursorId,
+                                           Limit limit);
+
+    /**
+     * The bookings of the items of {@code userId}, otherwise as {@link #findProjectedByUserId}.
+     */
+    List<BookingRow> findProjectedByOwnerId(Projection<OutwardBookingDto, BookingField> projection, Long userId,
+                                            State state, boolean archived, LocalDateTime cursorStart, Long cursorId,
+                                            Limit limit);
+}
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.projection.Projection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BookingProjectionRepositoryImpl implements BookingProjectionRepository {
+    private static final int KEYS = 2;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingRow> findProjectedByUserId(Projection<OutwardBookingDto, BookingField> projection, Long userId,
+                                                  State state, boolean archived, LocalDateTime cursorStart,
+                                                  Long cursorId, Limit limit) {
+        return find(projection, false, userId, state, archived, cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<BookingRow> findProjectedByOwnerId(Projection<OutwardBookingDto, BookingField> projection,
+                                                   Long userId, State state, boolean archived,
+                                                   LocalDateTime cursorStart, Long cursorId, Limit limit) {
+        return find(projection, true, userId, state, archived, cursorStart, cursorId, limit);
+    }
+
+    private List<BookingRow> find(Projection<OutwardBookingDto, BookingField> projection, boolean owner, Long userId,
+                                  State state, boolean archived, LocalDateTime cursorStart, Long cursorId,
+                                  Limit limit) {
+        StringBuilder hql = new StringBuilder("select b.start, b.id, ").append(projection.select())
+            .append(archived ? " from ArchivedBooking b" : " from Booking b");
+        if (owner || projection.has(BookingField.ITEM)) {
+            hql.append(" join b.item i");
+        }
+        if (projection.has(BookingField.BOOKER)) {
+            hql.append(" join b.booker bk");
+        }
+        hql.append(owner ? " where i.user.id = :userId" : " where b.booker.id = :userId");
+        boolean byStatus = state == State.REJECTED || state == State.WAITING;
+        // the archive only holds past bookings, so of the state filters only the status one narrows it
+        if (!archived || byStatus) {
+            hql.append(stateFilter(state));
+        }
+        hql.append(" and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId)")
+            .append(" order by b.start desc, b.id desc");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(hql.toString(), Object[].class)
+            .setParameter("userId", userId)
+            .setParameter("cursorStart", cursorStart)
+            .setParameter("cursorId", cursorId);
+        if (byStatus) {
+            query.setParameter("status", Status.valueOf(state.name()));
+        }
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList().stream()
+            .map(x -> new BookingRow((LocalDateTime) x[0], (Long) x[1], projection.toMap(x, KEYS)))
+            .toList();
+    }
+
+    private static String stateFilter(State state) {
+        return switch (state) {
+            case ALL -> "";
+            case REJECTED, WAITING -> " and b.status = :status";
+            case CURRENT -> " and CURRENT_TIMESTAMP > b.start and CURRENT_TIMESTAMP < b.end";
+            case FUTURE -> " and CURRENT_TIMESTAMP < b.start";
+            case PAST -> " and CURRENT_TIMESTAMP > b.end";
+        };
+    }
+}
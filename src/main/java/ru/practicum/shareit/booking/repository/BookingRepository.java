@@ -1,94 +1,268 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.index.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.storage.EntityRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends EntityRepository<Booking>, BookingProjectionRepository {
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b join b.item i " +
             "join b.booker bk " +
-            "where bk.id = :userId order by b.start desc")
-    List<OutwardBookingDto> findAllByUserId(Long userId);
+            "where bk.id = :userId " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByUserId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b join b.item i " +
             "join b.booker bk " +
-            "where bk.id = :userId and b.status = :status order by b.start desc")
-    List<OutwardBookingDto> findAllByUserIdAndStatus(Long userId, Status status);
+            "where bk.id = :userId and b.status = :status " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByUserIdAndStatus(Long userId, Status status,
+                                                     LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b join b.item i " +
             "join b.booker bk " +
             "where bk.id = :userId " +
-            "and CURRENT_TIMESTAMP > b.start and CURRENT_TIMESTAMP < b.end order by b.start desc")
-    List<OutwardBookingDto> findAllByUserIdCurrent(Long userId);
+            "and CURRENT_TIMESTAMP > b.start and CURRENT_TIMESTAMP < b.end " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByUserIdCurrent(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b join b.item i " +
             "join b.booker bk " +
-            "where bk.id = :userId and CURRENT_TIMESTAMP < b.start order by b.start desc")
-    List<OutwardBookingDto> findAllByUserIdFuture(Long userId);
+            "where bk.id = :userId and CURRENT_TIMESTAMP < b.start " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByUserIdFuture(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b join b.item i " +
             "join b.booker bk " +
-            "where bk.id = :userId and CURRENT_TIMESTAMP > b.end order by b.start desc")
-    List<OutwardBookingDto> findAllByUserIdPast(Long userId);
+            "where bk.id = :userId and CURRENT_TIMESTAMP > b.end " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByUserIdPast(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b " +
-            "join b.item i join i.user u " +
-            "where u.id = :userId order by b.start desc")
-    List<OutwardBookingDto> findAllByOwnerId(Long userId);
+            "join b.item i join i.user u join b.booker bk " +
+            "where u.id = :userId " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b " +
-            "join b.item i join i.user u " +
-            "where u.id = :userId and b.status = :status order by b.start desc")
-    List<OutwardBookingDto> findAllByOwnerIdAndStatus(Long userId, Status status);
+            "join b.item i join i.user u join b.booker bk " +
+            "where u.id = :userId and b.status = :status " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByOwnerIdAndStatus(Long userId, Status status,
+                                                      LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b " +
-            "join b.item i join i.user u " +
+            "join b.item i join i.user u join b.booker bk " +
             "where u.id = :userId " +
-            "and CURRENT_TIMESTAMP > b.start and CURRENT_TIMESTAMP < b.end order by b.start desc")
-    List<OutwardBookingDto> findAllByOwnerIdCurrent(Long userId);
+            "and CURRENT_TIMESTAMP > b.start and CURRENT_TIMESTAMP < b.end " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByOwnerIdCurrent(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b " +
-            "join b.item i join i.user u " +
+            "join b.item i join i.user u join b.booker bk " +
             "where u.id = :userId " +
-            "and CURRENT_TIMESTAMP < b.start order by b.start desc")
-    List<OutwardBookingDto> findAllByOwnerIdFuture(Long userId);
+            "and CURRENT_TIMESTAMP < b.start " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByOwnerIdFuture(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query(
-        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, b.item, b.booker, b.status) " +
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
             "from Booking b " +
-            "join b.item i join i.user u " +
+            "join b.item i join i.user u join b.booker bk " +
+            "where u.id = :userId " +
+            "and CURRENT_TIMESTAMP > b.end " +
+            "and b.start <= :cursorStart and (b.start < :cursorStart or b.id < :cursorId) " +
+            "order by b.start desc, b.id desc")
+    List<OutwardBookingDto> findAllByOwnerIdPast(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(a.id, a.start, a.end, i.id, i.name, bk.id, bk.name, " +
+            "a.status) " +
+            "from ArchivedBooking a join a.item i " +
+            "join a.booker bk " +
+            "where bk.id = :userId " +
+            "and a.start <= :cursorStart and (a.start < :cursorStart or a.id < :cursorId) " +
+            "order by a.start desc, a.id desc")
+    List<OutwardBookingDto> findAllArchivedByUserId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(a.id, a.start, a.end, i.id, i.name, bk.id, bk.name, " +
+            "a.status) " +
+            "from ArchivedBooking a join a.item i " +
+            "join a.booker bk " +
+            "where bk.id = :userId and a.status = :status " +
+            "and a.start <= :cursorStart and (a.start < :cursorStart or a.id < :cursorId) " +
+            "order by a.start desc, a.id desc")
+    List<OutwardBookingDto> findAllArchivedByUserIdAndStatus(Long userId, Status status,
+                                                             LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(a.id, a.start, a.end, i.id, i.name, bk.id, bk.name, " +
+            "a.status) " +
+            "from ArchivedBooking a " +
+            "join a.item i join i.user u join a.booker bk " +
             "where u.id = :userId " +
-            "and CURRENT_TIMESTAMP > b.end order by b.start desc")
-    List<OutwardBookingDto> findAllByOwnerIdPast(Long userId);
+            "and a.start <= :cursorStart and (a.start < :cursorStart or a.id < :cursorId) " +
+            "order by a.start desc, a.id desc")
+    List<OutwardBookingDto> findAllArchivedByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
-    Booking findFirstByItemIdAndEndBeforeOrderByEndDesc(Long itemId, LocalDateTime currentDateTime);
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(a.id, a.start, a.end, i.id, i.name, bk.id, bk.name, " +
+            "a.status) " +
+            "from ArchivedBooking a " +
+            "join a.item i join i.user u join a.booker bk " +
+            "where u.id = :userId and a.status = :status " +
+            "and a.start <= :cursorStart and (a.start < :cursorStart or a.id < :cursorId) " +
+            "order by a.start desc, a.id desc")
+    List<OutwardBookingDto> findAllArchivedByOwnerIdAndStatus(Long userId, Status status,
+                                                              LocalDateTime cursorStart, Long cursorId, Limit limit);
 
-    Booking findFirstByItemIdAndStartAfterOrderByStartAsc(Long itemId, LocalDateTime currentDateTime);
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(b.id, b.start, b.end, i.id, i.name, bk.id, bk.name, " +
+            "b.status) " +
+            "from Booking b join b.item i join b.booker bk " +
+            "where b.id = :bookingId and (bk.id = :userId or i.user.id = :userId)")
+    Optional<OutwardBookingDto> findViewByIdAndParticipantId(Long bookingId, Long userId);
+
+    @Query(
+        "select new ru.practicum.shareit.booking.dto.OutwardBookingDto(a.id, a.start, a.end, i.id, i.name, bk.id, bk.name, " +
+            "a.status) " +
+            "from ArchivedBooking a join a.item i join a.booker bk " +
+            "where a.id = :bookingId and (bk.id = :userId or i.user.id = :userId)")
+    Optional<OutwardBookingDto> findArchivedViewByIdAndParticipantId(Long bookingId, Long userId);
+
+    @Query("select count(a) > 0 from ArchivedBooking a where a.id = :bookingId")
+    boolean existsArchivedById(Long bookingId);
+
+    @Query("select b from Booking b join fetch b.item join fetch b.booker where b.id = :bookingId")
+    Optional<Booking> findWithItemAndBookerById(Long bookingId);
+
+    /**
+     * Moves the booking from {@code expected} to {@code status} in one statement, provided it is still in
+     * {@code expected} and its item belongs to {@code ownerId}. Returns the number of updated rows, so a concurrent
+     * approval that got there first leaves this one with {@code 0}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+        "where b.id = :bookingId and b.status = :expected " +
+        "and exists (select i.id from Item i where i.id = b.item.id and i.user.id = :ownerId)")
+    int updateStatus(Long bookingId, Long ownerId, Status expected, Status status);
+
+    @Query("select new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+        "from Booking b where b.status in :statuses")
+    List<BookingInterval> findAllIntervalsByStatusIn(Collection<Status> statuses);
+
+    @Query("select new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+        "from Booking b where b.booker.id = :userId and b.status in :statuses")
+    List<BookingInterval> findAllIntervalsByBookerIdAndStatusIn(Long userId, Collection<Status> statuses);
+
+    @Query("select new ru.practicum.shareit.booking.index.BookingInterval(b.id, i.id, b.start, b.end) " +
+        "from Booking b join b.item i where i.user.id = :userId and b.status in :statuses")
+    List<BookingInterval> findAllIntervalsByOwnerIdAndStatusIn(Long userId, Collection<Status> statuses);
+
+    @Query("select new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+        "from Booking b where b.item.id = :itemId and b.status in :statuses " +
+        "and b.start < :to and b.end > :from order by b.start")
+    List<BookingInterval> findAllIntervalsByItemIdBetween(Long itemId, Collection<Status> statuses,
+                                                          LocalDateTime from, LocalDateTime to);
+
+    @Query("select distinct b.item.id from Booking b where b.status in :statuses " +
+        "and b.start > :from and b.start <= :to")
+    List<Long> findItemIdsByStatusInAndStartBetween(Collection<Status> statuses, LocalDateTime from,
+                                                    LocalDateTime to);
+
+    @Query("select distinct b.item.id from Booking b where b.status in :statuses " +
+        "and b.end >= :from and b.end < :to")
+    List<Long> findItemIdsByStatusInAndEndBetween(Collection<Status> statuses, LocalDateTime from, LocalDateTime to);
 
     Boolean existsByItemIdAndBookerIdAndEndIsLessThanEqual(Long itemId, Long userId, LocalDateTime now);
+
+    @Query("select count(a) > 0 from ArchivedBooking a where a.item.id = :itemId and a.booker.id = :userId")
+    boolean existsArchivedByItemIdAndBookerId(Long itemId, Long userId);
+
+    /**
+     * Locks and returns up to {@code limit} bookings in {@code statuses} that ended before {@code horizon}, oldest
+     * first. A booking an item points to as its last one stays, so that the item pointers never dangle.
+     */
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.item.id, b.start, b.end) " +
+        "from Booking b where b.end < :horizon and b.status in :statuses " +
+        "and not exists (select i.id from Item i where i.lastBookingId = b.id) " +
+        "order by b.end, b.id")
+    List<BookingInterval> findArchivableIntervals(Collection<Status> statuses, LocalDateTime horizon, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("insert into ArchivedBooking (id, start, end, item, booker, status, version) " +
+        "select b.id, b.start, b.end, b.item, b.booker, b.status, b.version from Booking b where b.id in :bookingIds")
+    int copyToArchive(Collection<Long> bookingIds);
+
+    /**
+     * Moves one chunk of bookings that ended before {@code horizon} to the archive in a single short transaction
+     * and returns the moved intervals. The rows stay locked from the select to the delete, so a concurrent
+     * decision either lands before the copy or finds the booking gone.
+     */
+    @Transactional
+    default List<BookingInterval> archiveChunk(Collection<Status> statuses, LocalDateTime horizon, int size) {
+        List<BookingInterval> chunk = findArchivableIntervals(statuses, horizon, Limit.of(size));
+        if (!chunk.isEmpty()) {
+            List<Long> bookingIds = chunk.stream().map(BookingInterval::bookingId).toList();
+            copyToArchive(bookingIds);
+            deleteAllByIdInBatch(bookingIds);
+        }
+        return chunk;
+    }
 }
@@ -0,0 +1,411 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemStubRepository;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.storage.IdIndex;
+import ru.practicum.shareit.storage.StubRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserStubRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("memory")
+public class BookingStubRepository extends StubRepository<Booking> implements BookingRepository {
+    private static final Comparator<Booking> NEWEST_FIRST = Comparator.comparing(Booking::getStart)
+        .thenComparing(Booking::getId).reversed();
+    private static final Comparator<Booking> BY_END = Comparator.comparing(Booking::getEnd)
+        .thenComparing(Booking::getId);
+    private static final Comparator<Booking> BY_START = Comparator.comparing(Booking::getStart)
+        .thenComparing(Booking::getId);
+
+    private final ItemStubRepository itemRepository;
+    private final UserStubRepository userRepository;
+    private final IdIndex itemIndex = new IdIndex();
+    private final IdIndex bookerIndex = new IdIndex();
+
+    public BookingStubRepository(ItemStubRepository itemRepository, UserStubRepository userRepository) {
+        super(Booking.class);
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        itemRepository.setBookingRepository(this);
+        itemRepository.onDelete(item -> deleteAllById(itemIndex.get(item.getId())));
+        userRepository.onDelete(user -> deleteAllById(bookerIndex.get(user.getId())));
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByUserId(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                   Limit limit) {
+        return page(byBooker(userId), x -> true, cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByUserIdAndStatus(Long userId, Status status, LocalDateTime cursorStart,
+                                                            Long cursorId, Limit limit) {
+        return page(byBooker(userId), x -> x.getStatus() == status, cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByUserIdCurrent(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                          Limit limit) {
+        return page(byBooker(userId), current(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByUserIdFuture(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                         Limit limit) {
+        return page(byBooker(userId), future(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByUserIdPast(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                       Limit limit) {
+        return page(byBooker(userId), past(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                    Limit limit) {
+        return page(byOwner(userId), x -> true, cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByOwnerIdAndStatus(Long userId, Status status, LocalDateTime cursorStart,
+                                                             Long cursorId, Limit limit) {
+        return page(byOwner(userId), x -> x.getStatus() == status, cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByOwnerIdCurrent(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                           Limit limit) {
+        return page(byOwner(userId), current(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByOwnerIdFuture(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                          Limit limit) {
+        return page(byOwner(userId), future(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllByOwnerIdPast(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                        Limit limit) {
+        return page(byOwner(userId), past(LocalDateTime.now()), cursorStart, cursorId, limit);
+    }
+
+    @Override
+    public Optional<OutwardBookingDto> findViewByIdAndParticipantId(Long bookingId, Long userId) {
+        return findById(bookingId)
+            .filter(x -> x.getBooker().getId().equals(userId) || x.getItem().getUser().getId().equals(userId))
+            .map(BookingStubRepository::toView);
+    }
+
+    @Override
+    public Optional<Booking> findWithItemAndBookerById(Long bookingId) {
+        return findById(bookingId);
+    }
+
+    @Override
+    public int updateStatus(Long bookingId, Long ownerId, Status expected, Status status) {
+        boolean updated = updateIf(bookingId,
+            x -> x.getStatus() == expected && itemRepository.findById(x.getItem().getId())
+                .filter(item -> item.getUser().getId().equals(ownerId)).isPresent(),
+            x -> {
+                x.setStatus(status);
+                x.setVersion(x.getVersion() == null ? 1 : x.getVersion() + 1);
+            });
+        return updated ? 1 : 0;
+    }
+
+    @Override
+    public List<BookingInterval> findAllIntervalsByStatusIn(Collection<Status> statuses) {
+        return stored()
+            .filter(x -> statuses.contains(x.getStatus()))
+            .map(BookingStubRepository::toInterval)
+            .toList();
+    }
+
+    @Override
+    public List<BookingInterval> findAllIntervalsByBookerIdAndStatusIn(Long userId, Collection<Status> statuses) {
+        return byBooker(userId)
+            .filter(x -> statuses.contains(x.getStatus()))
+            .map(BookingStubRepository::toInterval)
+            .toList();
+    }
+
+    @Override
+    public List<BookingInterval> findAllIntervalsByOwnerIdAndStatusIn(Long userId, Collection<Status> statuses) {
+        return byOwner(userId)
+            .filter(x -> statuses.contains(x.getStatus()))
+            .map(BookingStubRepository::toInterval)
+            .toList();
+    }
+
+    @Override
+    public List<BookingInterval> findAllIntervalsByItemIdBetween(Long itemId, Collection<Status> statuses,
+                                                                 LocalDateTime from, LocalDateTime to) {
+        return byItem(itemId)
+            .filter(x -> statuses.contains(x.getStatus()) && x.getStart().isBefore(to) && x.getEnd().isAfter(from))
+            .sorted(BY_START)
+            .map(BookingStubRepository::toInterval)
+            .toList();
+    }
+
+    @Override
+    public List<Long> findItemIdsByStatusInAndStartBetween(Collection<Status> statuses, LocalDateTime from,
+                                                           LocalDateTime to) {
+        return itemIds(stored().filter(x -> statuses.contains(x.getStatus()) && x.getStart().isAfter(from) &&
+            !x.getStart().isAfter(to)));
+    }
+
+    @Override
+    public List<Long> findItemIdsByStatusInAndEndBetween(Collection<Status> statuses, LocalDateTime from,
+                                                         LocalDateTime to) {
+        return itemIds(stored().filter(x -> statuses.contains(x.getStatus()) && !x.getEnd().isBefore(from) &&
+            x.getEnd().isBefore(to)));
+    }
+
+    /**
+     * Id of the item's latest booking in {@code statuses} that ended before {@code now}, for the item pointers.
+     */
+    public Long findLastBookingId(Long itemId, Collection<Status> statuses, LocalDateTime now) {
+        return byItem(itemId)
+            .filter(x -> statuses.contains(x.getStatus()) && x.getEnd().isBefore(now))
+            .max(BY_END)
+            .map(Booking::getId)
+            .orElse(null);
+    }
+
+    /**
+     * Id of the item's earliest booking in {@code statuses} that starts after {@code now}, for the item pointers.
+     */
+    public Long findNextBookingId(Long itemId, Collection<Status> statuses, LocalDateTime now) {
+        return byItem(itemId)
+            .filter(x -> statuses.contains(x.getStatus()) && x.getStart().isAfter(now))
+            .min(BY_START)
+            .map(Booking::getId)
+            .orElse(null);
+    }
+
+    @Override
+    public Boolean existsByItemIdAndBookerIdAndEndIsLessThanEqual(Long itemId, Long userId, LocalDateTime now) {
+        return storedById(bookerIndex.get(userId).stream())
+            .anyMatch(x -> x.getItem().getId().equals(itemId) && !x.getEnd().isAfter(now));
+    }
+
+    /**
+     * Narrows the full listing, the stored bookings being in memory already.
+     */
+    @Override
+    public List<BookingRow> findProjectedByUserId(Projection<OutwardBookingDto, BookingField> projection, Long userId,
+                                                  State state, boolean archived, LocalDateTime cursorStart,
+                                                  Long cursorId, Limit limit) {
+        if (archived) {
+            return List.of();
+        }
+        return project(projection, switch (state) {
+            case ALL -> findAllByUserId(userId, cursorStart, cursorId, limit);
+            case REJECTED -> findAllByUserIdAndStatus(userId, Status.REJECTED, cursorStart, cursorId, limit);
+            case WAITING -> findAllByUserIdAndStatus(userId, Status.WAITING, cursorStart, cursorId, limit);
+            case CURRENT -> findAllByUserIdCurrent(userId, cursorStart, cursorId, limit);
+            case FUTURE -> findAllByUserIdFuture(userId, cursorStart, cursorId, limit);
+            case PAST -> findAllByUserIdPast(userId, cursorStart, cursorId, limit);
+        });
+    }
+
+    @Override
+    public List<BookingRow> findProjectedByOwnerId(Projection<OutwardBookingDto, BookingField> projection,
+                                                   Long userId, State state, boolean archived,
+                                                   LocalDateTime cursorStart, Long cursorId, Limit limit) {
+        if (archived) {
+            return List.of();
+        }
+        return project(projection, switch (state) {
+            case ALL -> findAllByOwnerId(userId, cursorStart, cursorId, limit);
+            case REJECTED -> findAllByOwnerIdAndStatus(userId, Status.REJECTED, cursorStart, cursorId, limit);
+            case WAITING -> findAllByOwnerIdAndStatus(userId, Status.WAITING, cursorStart, cursorId, limit);
+            case CURRENT -> findAllByOwnerIdCurrent(userId, cursorStart, cursorId, limit);
+            case FUTURE -> findAllByOwnerIdFuture(userId, cursorStart, cursorId, limit);
+            case PAST -> findAllByOwnerIdPast(userId, cursorStart, cursorId, limit);
+        });
+    }
+
+    // the memory profile keeps every booking in one store, so the archive is always empty
+
+    @Override
+    public List<OutwardBookingDto> findAllArchivedByUserId(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                           Limit limit) {
+        return List.of();
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllArchivedByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId,
+                                                            Limit limit) {
+        return List.of();
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllArchivedByUserIdAndStatus(Long userId, Status status,
+                                                                    LocalDateTime cursorStart, Long cursorId,
+                                                                    Limit limit) {
+        return List.of();
+    }
+
+    @Override
+    public List<OutwardBookingDto> findAllArchivedByOwnerIdAndStatus(Long userId, Status status,
+                                                                     LocalDateTime cursorStart, Long cursorId,
+                                                                     Limit limit) {
+        return List.of();
+    }
+
+    @Override
+    public Optional<OutwardBookingDto> findArchivedViewByIdAndParticipantId(Long bookingId, Long userId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsArchivedById(Long bookingId) {
+        return false;
+    }
+
+    @Override
+    public boolean existsArchivedByItemIdAndBookerId(Long itemId, Long userId) {
+        return false;
+    }
+
+    @Override
+    public List<BookingInterval> findArchivableIntervals(Collection<Status> statuses, LocalDateTime horizon,
+                                                         Limit limit) {
+        return List.of();
+    }
+
+    @Override
+    public int copyToArchive(Collection<Long> bookingIds) {
+        return 0;
+    }
+
+    @Override
+    protected Long getId(Booking booking) {
+        return booking.getId();
+    }
+
+    @Override
+    protected void setId(Booking booking, Long id) {
+        booking.setId(id);
+    }
+
+    @Override
+    protected Booking detach(Booking booking) {
+        return copy(booking, Item.builder().id(booking.getItem().getId()).build(),
+            User.builder().id(booking.getBooker().getId()).build());
+    }
+
+    @Override
+    protected Booking attach(Booking booking) {
+        Optional<Item> item = itemRepository.findById(booking.getItem().getId());
+        Optional<User> booker = userRepository.findById(booking.getBooker().getId());
+        if (item.isEmpty() || booker.isEmpty()) {
+            return null;
+        }
+        return copy(booking, item.get(), booker.get());
+    }
+
+    @Override
+    protected void index(Booking previous, Booking booking) {
+        itemIndex.add(booking.getItem().getId(), booking.getId());
+        bookerIndex.add(booking.getBooker().getId(), booking.getId());
+    }
+
+    @Override
+    protected void unindex(Booking booking) {
+        itemIndex.remove(booking.getItem().getId(), booking.getId());
+        bookerIndex.remove(booking.getBooker().getId(), booking.getId());
+    }
+
+    private Stream<Booking> byItem(Long itemId) {
+        return storedById(itemIndex.get(itemId).stream());
+    }
+
+    private Stream<Booking> byBooker(Long userId) {
+        return storedById(bookerIndex.get(userId).stream());
+    }
+
+    private Stream<Booking> byOwner(Long userId) {
+        return storedById(Arrays.stream(itemRepository.findIdsByUserId(userId)).boxed()
+            .flatMap(x -> itemIndex.get(x).stream()));
+    }
+
+    private static List<Long> itemIds(Stream<Booking> bookings) {
+        return bookings.map(x -> x.getItem().getId()).distinct().toList();
+    }
+
+    private Stream<Booking> storedById(Stream<Long> ids) {
+        return ids.map(this::stored).filter(Objects::nonNull);
+    }
+
+    private List<OutwardBookingDto> page(Stream<Booking> bookings, Predicate<Booking> filter,
+                                         LocalDateTime cursorStart, Long cursorId, Limit limit) {
+        Stream<Booking> page = bookings
+            .filter(filter)
+            .filter(x -> x.getStart().isBefore(cursorStart) ||
+                (x.getStart().isEqual(cursorStart) && x.getId() < cursorId))
+            .sorted(NEWEST_FIRST)
+            .map(this::attach)
+            .filter(Objects::nonNull);
+        if (limit.isLimited()) {
+            page = page.limit(limit.max());
+        }
+        return page.map(BookingStubRepository::toView).toList();
+    }
+
+    private static Predicate<Booking> current(LocalDateTime now) {
+        return x -> now.isAfter(x.getStart()) && now.isBefore(x.getEnd());
+    }
+
+    private static Predicate<Booking> future(LocalDateTime now) {
+        return x -> now.isBefore(x.getStart());
+    }
+
+    private static Predicate<Booking> past(LocalDateTime now) {
+        return x -> now.isAfter(x.getEnd());
+    }
+
+    private static OutwardBookingDto toView(Booking booking) {
+        return new OutwardBookingDto(booking.getId(), booking.getStart(), booking.getEnd(), booking.getItem().getId(),
+            booking.getItem().getName(), booking.getBooker().getId(), booking.getBooker().getName(),
+            booking.getStatus());
+    }
+
+    private static List<BookingRow> project(Projection<OutwardBookingDto, BookingField> projection,
+                                            List<OutwardBookingDto> bookings) {
+        return bookings.stream().map(x -> new BookingRow(x.getStart(), x.getId(), projection.toMap(x))).toList();
+    }
+
+    private static BookingInterval toInterval(Booking booking) {
+        return new BookingInterval(booking.getId(), booking.getItem().getId(), booking.getStart(), booking.getEnd());
+    }
+
+    private static Booking copy(Booking booking, Item item, User booker) {
+        return Booking.builder().id(booking.getId()).start(booking.getStart()).end(booking.getEnd()).item(item)
+            .booker(booker).status(booking.getStatus()).version(booking.getVersion()).build();
+    }
+}
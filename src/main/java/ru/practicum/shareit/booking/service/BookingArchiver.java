@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.Shards;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves decided bookings that ended more than {@code shareit.booking.archive.horizon} ago from {@code BOOKING} to
+ * {@code BOOKING_ARCHIVE}, {@code shareit.booking.archive.chunk-size} rows per transaction, so that the listings
+ * other than {@code PAST} only read recent bookings. Waiting bookings are never archived.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+    public static final Set<Status> ARCHIVED = EnumSet.of(Status.APPROVED, Status.REJECTED);
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final Duration horizon;
+    private final int chunkSize;
+    private final Shards shards;
+
+    public BookingArchiver(BookingRepository bookingRepository, BookingIntervalIndex bookingIntervalIndex,
+                           @Value("${shareit.booking.archive.horizon:P90D}") Duration horizon,
+                           @Value("${shareit.booking.archive.chunk-size:500}") int chunkSize, Shards shards) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.horizon = horizon;
+        this.chunkSize = chunkSize;
+        this.shards = shards;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval-millis:3600000}")
+    public void archive() {
+        archive(LocalDateTime.now().minus(horizon));
+    }
+
+    /**
+     * Archives the bookings that ended before {@code endedBefore} shard by shard, chunk by chunk until none is left,
+     * and returns their number.
+     */
+    public int archive(LocalDateTime endedBefore) {
+        int archived = shards.sum(() -> archiveShard(endedBefore));
+        if (archived > 0) {
+            log.info("{} bookings that ended before {} archived", archived, endedBefore);
+        }
+        return archived;
+    }
+
+    private int archiveShard(LocalDateTime endedBefore) {
+        int archived = 0;
+        List<BookingInterval> chunk;
+        do {
+            chunk = bookingRepository.archiveChunk(ARCHIVED, endedBefore, chunkSize);
+            for (BookingInterval interval : chunk) {
+                bookingIntervalIndex.release(interval.itemId(), interval.bookingId());
+            }
+            archived += chunk.size();
+        } while (chunk.size() == chunkSize);
+        return archived;
+    }
+}
@@ -1,19 +1,35 @@
 package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.InwardBookingDto;
 import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.projection.Projection;
 
 import java.util.List;
 
 public interface BookingService {
     OutwardBookingDto addBooking(InwardBookingDto inwardBookingDto, Long userId);
 
+    List<BookingBatchResultDto> addBookings(List<InwardBookingDto> inwardBookingDtos, Long userId);
+
     OutwardBookingDto approveBooking(Long bookingId, Long userId, Boolean approved);
 
     OutwardBookingDto getBooking(Long bookingId, Long userId);
 
-    List<OutwardBookingDto> getUserBookings(Long userId, State state);
+    List<OutwardBookingDto> getUserBookings(Long userId, State state, BookingCursor cursor, Integer size);
+
+    List<OutwardBookingDto> getOwnerBookings(Long userId, State state, BookingCursor cursor, Integer size);
+
+    /**
+     * {@link #getUserBookings} narrowed to the fields of {@code projection}, which are all the query reads.
+     */
+    List<BookingRow> getUserBookings(Long userId, State state, BookingCursor cursor, Integer size,
+                                     Projection<OutwardBookingDto, BookingField> projection);
 
-    List<OutwardBookingDto> getOwnerBookings(Long userId, State state);
+    List<BookingRow> getOwnerBookings(Long userId, State state, BookingCursor cursor, Integer size,
+                                      Projection<OutwardBookingDto, BookingField> projection);
 }
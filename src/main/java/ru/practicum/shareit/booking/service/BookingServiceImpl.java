@@ -1,17 +1,28 @@
 package ru.practicum.shareit.booking.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.InwardBookingDto;
 import ru.practicum.shareit.booking.dto.InwardBookingMapper;
 import ru.practicum.shareit.booking.dto.OutwardBookingDto;
 import ru.practicum.shareit.booking.dto.OutwardBookingMapper;
 import ru.practicum.shareit.booking.exception.NotAvailableException;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.ReplicaRead;
+import ru.practicum.shareit.datasource.ShardKey;
+import ru.practicum.shareit.datasource.Shards;
 import ru.practicum.shareit.exception.AccessException;
 import ru.practicum.shareit.exception.DataOperationException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
@@ -19,22 +30,46 @@ import ru.practicum.shareit.exception.MissingValueException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
+import ru.practicum.shareit.projection.Projection;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final Comparator<OutwardBookingDto> NEWEST_FIRST = Comparator
+        .comparing(OutwardBookingDto::getStart).thenComparing(OutwardBookingDto::getId).reversed();
+    private static final Comparator<BookingRow> NEWEST_ROW_FIRST = Comparator
+        .comparing(BookingRow::start).thenComparing(BookingRow::id).reversed();
+    // the listings that can hold archived bookings, which are decided and over
+    private static final Set<State> ARCHIVED_STATES = EnumSet.of(State.ALL, State.REJECTED, State.PAST);
+
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingPointers itemBookingPointers;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final OutwardBookingMapper outwardBookingMapper;
     private final InwardBookingMapper inwardBookingMapper;
+    private final Validator validator;
+    private final Shards shards;
 
     public OutwardBookingDto addBooking(InwardBookingDto inwardBookingDto, Long userId) {
         LocalDateTime start = inwardBookingDto.getStart();
@@ -43,6 +78,15 @@ public class BookingServiceImpl implements BookingService {
             end == null) {
             throw new MissingValueException();
         }
+        return shards.on(shards.ofId(inwardBookingDto.getItemId()), () -> book(inwardBookingDto, userId));
+    }
+
+    /**
+     * Books the item on its shard, where the booking is stored with it.
+     */
+    private OutwardBookingDto book(InwardBookingDto inwardBookingDto, Long userId) {
+        LocalDateTime start = inwardBookingDto.getStart();
+        LocalDateTime end = inwardBookingDto.getEnd();
         User user = userRepository.findById(userId).orElseThrow(NotFoundException::new);
         Item item = itemRepository.findById(inwardBookingDto.getItemId()).orElseThrow(NotFoundException::new);
         if (userId.equals(item.getUser().getId())) {
@@ -51,62 +95,269 @@ public class BookingServiceImpl implements BookingService {
         if (!item.getAvailable()) {
             throw new NotAvailableException();
         }
-        Booking created =
-            bookingRepository.save(inwardBookingMapper.toEntity(inwardBookingDto, item, user));
+        Booking created = bookingIntervalIndex.reserve(item.getId(), start, end, () -> {
+            Booking saved = bookingRepository.save(inwardBookingMapper.toEntity(inwardBookingDto, item, user));
+            itemBookingPointers.refresh(item.getId());
+            return saved;
+        });
         log.info("entity created: {}", created);
         return outwardBookingMapper.toDto(created);
     }
 
+    /**
+     * Creates the valid entries of {@code inwardBookingDtos} in one pass: the booker and all referenced items are
+     * loaded with one query each, and the accepted bookings are written by a single {@code saveAll}, which
+     * Hibernate sends as JDBC batches. Invalid or conflicting entries are reported without failing the others.
+     * Entries for items on different shards are processed shard by shard.
+     */
     @Override
-    public OutwardBookingDto approveBooking(Long bookingId, Long userId, Boolean approved) {
-        User user = userRepository.findById(userId).orElseThrow(AccessException::new);
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(NotFoundException::new);
-        if (!user.equals(booking.getItem().getUser())) {
-            throw new AccessException();
+    public List<BookingBatchResultDto> addBookings(List<InwardBookingDto> inwardBookingDtos, Long userId) {
+        Map<Integer, List<Integer>> positions = IntStream.range(0, inwardBookingDtos.size()).boxed()
+            .collect(Collectors.groupingBy(i -> shards.ofId(inwardBookingDtos.get(i).getItemId()), TreeMap::new,
+                Collectors.toList()));
+        if (positions.size() <= 1) {
+            return shards.on(positions.isEmpty() ? Shards.HOME : positions.keySet().iterator().next(),
+                () -> addBookingsOnShard(inwardBookingDtos, userId));
         }
-        if (approved && !booking.getStatus().equals(Status.APPROVED)) {
-            booking.setStatus(Status.APPROVED);
-        } else if (!approved && !booking.getStatus().equals(Status.REJECTED)) {
-            booking.setStatus(Status.REJECTED);
-        } else {
-            throw new DataOperationException();
+        BookingBatchResultDto[] results = new BookingBatchResultDto[inwardBookingDtos.size()];
+        positions.forEach((shard, indexes) -> {
+            List<BookingBatchResultDto> processed = shards.on(shard,
+                () -> addBookingsOnShard(indexes.stream().map(inwardBookingDtos::get).toList(), userId));
+            for (BookingBatchResultDto result : processed) {
+                result.setIndex(indexes.get(result.getIndex()));
+                results[result.getIndex()] = result;
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<BookingBatchResultDto> addBookingsOnShard(List<InwardBookingDto> inwardBookingDtos, Long userId) {
+        User user = userRepository.findById(userId).orElseThrow(NotFoundException::new);
+        Set<Long> itemIds = inwardBookingDtos.stream()
+            .map(InwardBookingDto::getItemId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[inwardBookingDtos.size()];
+        List<Booking> candidates = new ArrayList<>(inwardBookingDtos.size());
+        List<Integer> positions = new ArrayList<>(inwardBookingDtos.size());
+        for (int i = 0; i < inwardBookingDtos.size(); i++) {
+            InwardBookingDto inwardBookingDto = inwardBookingDtos.get(i);
+            Item item = items.get(inwardBookingDto.getItemId());
+            String error = checkBatchEntry(inwardBookingDto, item, userId);
+            if (error != null) {
+                results[i] = BookingBatchResultDto.builder().index(i).error(error).build();
+            } else {
+                candidates.add(inwardBookingMapper.toEntity(inwardBookingDto, item, user));
+                positions.add(i);
+            }
+        }
+        List<Booking> written = bookingIntervalIndex.reserveAll(candidates, accepted -> {
+            List<Booking> saved = bookingRepository.saveAll(accepted);
+            itemBookingPointers.refresh(saved.stream().map(x -> x.getItem().getId()).collect(Collectors.toSet()));
+            return saved;
+        });
+        int created = 0;
+        for (int j = 0; j < written.size(); j++) {
+            int i = positions.get(j);
+            Booking booking = written.get(j);
+            if (booking == null) {
+                Booking candidate = candidates.get(j);
+                results[i] = BookingBatchResultDto.builder().index(i).error("Item " + candidate.getItem().getId() +
+                    " is already booked for " + candidate.getStart() + " - " + candidate.getEnd()).build();
+            } else {
+                results[i] = BookingBatchResultDto.builder().index(i).booking(outwardBookingMapper.toDto(booking))
+                    .build();
+                created++;
+            }
         }
-        booking = bookingRepository.save(booking);
-        return outwardBookingMapper.toDto(booking);
+        log.info("batch of {} bookings processed, {} created", results.length, created);
+        return Arrays.asList(results);
     }
 
+    /**
+     * A decision on a waiting booking is a single conditional {@code UPDATE} that checks the owner and the status
+     * in its {@code WHERE} clause; of concurrent decisions exactly one updates the row.
+     */
     @Override
-    public OutwardBookingDto getBooking(Long bookingId, Long userId) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(NotFoundException::new);
-        if (!userId.equals(booking.getBooker().getId())
-            && !userId.equals(booking.getItem().getUser().getId())) {
+    public OutwardBookingDto approveBooking(@ShardKey(ShardKey.Kind.ID) Long bookingId, Long userId,
+                                            Boolean approved) {
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        if (bookingRepository.updateStatus(bookingId, userId, Status.WAITING, status) == 0) {
+            return changeDecision(bookingId, userId, status);
+        }
+        OutwardBookingDto updated = bookingRepository.findViewByIdAndParticipantId(bookingId, userId)
+            .orElseThrow(NotFoundException::new);
+        if (status == Status.REJECTED) {
+            bookingIntervalIndex.release(updated.getItem().getId(), bookingId);
+            itemBookingPointers.refresh(updated.getItem().getId());
+        }
+        return updated;
+    }
+
+    /**
+     * Slow path of {@link #approveBooking}, taken when the booking is no longer waiting: tells a missing booking,
+     * a foreign one and a repeated decision apart, or reverses an earlier decision. The update is still
+     * conditional on the status read here, so a concurrent decision fails this one instead of being overwritten.
+     */
+    private OutwardBookingDto changeDecision(Long bookingId, Long userId, Status status) {
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId).orElseThrow(NotFoundException::new);
+        if (!userId.equals(booking.getItem().getUser().getId())) {
             throw new AccessException();
         }
-        return outwardBookingMapper.toDto(booking);
+        Status previous = booking.getStatus();
+        if (previous.equals(status)) {
+            throw new DataOperationException();
+        }
+        // a copy, so that the managed entity is not flushed over the conditional update
+        Booking decided = Booking.builder().id(bookingId).start(booking.getStart()).end(booking.getEnd())
+            .item(booking.getItem()).booker(booking.getBooker()).status(status).build();
+        Booking updated = bookingIntervalIndex.transition(decided, previous, () -> {
+            if (bookingRepository.updateStatus(bookingId, userId, previous, status) == 0) {
+                throw new DataOperationException();
+            }
+            return decided;
+        });
+        itemBookingPointers.refresh(updated.getItem().getId());
+        return outwardBookingMapper.toDto(updated);
     }
 
     @Override
-    public List<OutwardBookingDto> getUserBookings(Long userId, State state) {
+    @ReplicaRead
+    public OutwardBookingDto getBooking(@ShardKey(ShardKey.Kind.ID) Long bookingId, Long userId) {
+        return bookingRepository.findViewByIdAndParticipantId(bookingId, userId)
+            .or(() -> bookingRepository.findArchivedViewByIdAndParticipantId(bookingId, userId))
+            .orElseThrow(() -> bookingRepository.existsById(bookingId) || bookingRepository.existsArchivedById(bookingId)
+                ? new AccessException() : new NotFoundException());
+    }
+
+    /**
+     * A booker's bookings are spread over the shards of the items, each shard's page is read in parallel and the
+     * pages are merged.
+     */
+    @Override
+    @ReplicaRead
+    public List<OutwardBookingDto> getUserBookings(Long userId, State state, BookingCursor cursor, Integer size) {
+        return merge(shards.gather(() -> findUserBookings(userId, state, cursor, size)), NEWEST_FIRST,
+            toLimit(size));
+    }
+
+    private List<OutwardBookingDto> findUserBookings(Long userId, State state, BookingCursor cursor, Integer size) {
+        LocalDateTime start = cursor.start();
+        Long id = cursor.id();
+        Limit limit = toLimit(size);
         return switch (state) {
-            case ALL -> bookingRepository.findAllByUserId(userId);
-            case REJECTED -> bookingRepository.findAllByUserIdAndStatus(userId, Status.REJECTED);
-            case WAITING -> bookingRepository.findAllByUserIdAndStatus(userId, Status.WAITING);
-            case CURRENT -> bookingRepository.findAllByUserIdCurrent(userId);
-            case FUTURE -> bookingRepository.findAllByUserIdFuture(userId);
-            case PAST -> bookingRepository.findAllByUserIdPast(userId);
+            case ALL -> withArchived(bookingRepository.findAllByUserId(userId, start, id, limit),
+                bookingRepository.findAllArchivedByUserId(userId, start, id, limit), NEWEST_FIRST, limit);
+            case REJECTED -> withArchived(
+                bookingRepository.findAllByUserIdAndStatus(userId, Status.REJECTED, start, id, limit),
+                bookingRepository.findAllArchivedByUserIdAndStatus(userId, Status.REJECTED, start, id, limit),
+                NEWEST_FIRST, limit);
+            case WAITING -> bookingRepository.findAllByUserIdAndStatus(userId, Status.WAITING, start, id, limit);
+            case CURRENT -> bookingRepository.findAllByUserIdCurrent(userId, start, id, limit);
+            case FUTURE -> bookingRepository.findAllByUserIdFuture(userId, start, id, limit);
+            case PAST -> withArchived(bookingRepository.findAllByUserIdPast(userId, start, id, limit),
+                bookingRepository.findAllArchivedByUserId(userId, start, id, limit), NEWEST_FIRST, limit);
         };
     }
 
     @Override
-    public List<OutwardBookingDto> getOwnerBookings(Long userId, State state) {
-        userRepository.findById(userId).orElseThrow(NotFoundException::new);
+    @ReplicaRead
+    public List<BookingRow> getUserBookings(Long userId, State state, BookingCursor cursor, Integer size,
+                                            Projection<OutwardBookingDto, BookingField> projection) {
+        return merge(shards.gather(() -> findUserBookings(userId, state, cursor, size, projection)),
+            NEWEST_ROW_FIRST, toLimit(size));
+    }
+
+    private List<BookingRow> findUserBookings(Long userId, State state, BookingCursor cursor, Integer size,
+                                              Projection<OutwardBookingDto, BookingField> projection) {
+        Limit limit = toLimit(size);
+        List<BookingRow> found = bookingRepository.findProjectedByUserId(projection, userId, state, false,
+            cursor.start(), cursor.id(), limit);
+        return !ARCHIVED_STATES.contains(state) ? found : withArchived(found,
+            bookingRepository.findProjectedByUserId(projection, userId, state, true, cursor.start(), cursor.id(),
+                limit), NEWEST_ROW_FIRST, limit);
+    }
+
+    @Override
+    @ReplicaRead
+    public List<OutwardBookingDto> getOwnerBookings(@ShardKey(ShardKey.Kind.OWNER) Long userId, State state,
+                                                   BookingCursor cursor, Integer size) {
+        LocalDateTime start = cursor.start();
+        Long id = cursor.id();
+        Limit limit = toLimit(size);
         return switch (state) {
-            case ALL -> bookingRepository.findAllByOwnerId(userId);
-            case REJECTED -> bookingRepository.findAllByOwnerIdAndStatus(userId, Status.REJECTED);
-            case WAITING -> bookingRepository.findAllByOwnerIdAndStatus(userId, Status.WAITING);
-            case CURRENT -> bookingRepository.findAllByOwnerIdCurrent(userId);
-            case FUTURE -> bookingRepository.findAllByOwnerIdFuture(userId);
-            case PAST -> bookingRepository.findAllByOwnerIdPast(userId);
+            case ALL -> withArchived(bookingRepository.findAllByOwnerId(userId, start, id, limit),
+                bookingRepository.findAllArchivedByOwnerId(userId, start, id, limit), NEWEST_FIRST, limit);
+            case REJECTED -> withArchived(
+                bookingRepository.findAllByOwnerIdAndStatus(userId, Status.REJECTED, start, id, limit),
+                bookingRepository.findAllArchivedByOwnerIdAndStatus(userId, Status.REJECTED, start, id, limit),
+                NEWEST_FIRST, limit);
+            case WAITING -> bookingRepository.findAllByOwnerIdAndStatus(userId, Status.WAITING, start, id, limit);
+            case CURRENT -> bookingRepository.findAllByOwnerIdCurrent(userId, start, id, limit);
+            case FUTURE -> bookingRepository.findAllByOwnerIdFuture(userId, start, id, limit);
+            case PAST -> withArchived(bookingRepository.findAllByOwnerIdPast(userId, start, id, limit),
+                bookingRepository.findAllArchivedByOwnerId(userId, start, id, limit), NEWEST_FIRST, limit);
         };
     }
+
+    @Override
+    @ReplicaRead
+    public List<BookingRow> getOwnerBookings(@ShardKey(ShardKey.Kind.OWNER) Long userId, State state,
+                                             BookingCursor cursor, Integer size,
+                                             Projection<OutwardBookingDto, BookingField> projection) {
+        Limit limit = toLimit(size);
+        List<BookingRow> found = bookingRepository.findProjectedByOwnerId(projection, userId, state, false,
+            cursor.start(), cursor.id(), limit);
+        return !ARCHIVED_STATES.contains(state) ? found : withArchived(found,
+            bookingRepository.findProjectedByOwnerId(projection, userId, state, true, cursor.start(), cursor.id(),
+                limit), NEWEST_ROW_FIRST, limit);
+    }
+
+    private String checkBatchEntry(InwardBookingDto inwardBookingDto, Item item, Long userId) {
+        Set<ConstraintViolation<InwardBookingDto>> violations = validator.validate(inwardBookingDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(x -> x.getPropertyPath().toString().isEmpty()
+                    ? x.getMessage() : x.getPropertyPath() + " " + x.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        }
+        if (item == null) {
+            return "Item " + inwardBookingDto.getItemId() + " not found";
+        }
+        if (userId.equals(item.getUser().getId())) {
+            return "Item " + item.getId() + " belongs to the booker";
+        }
+        if (!item.getAvailable()) {
+            return "Item " + item.getId() + " is not available";
+        }
+        return null;
+    }
+
+    /**
+     * Merges the archived page into the recent one, both read with the same cursor and limit.
+     */
+    private static <T> List<T> withArchived(List<T> recent, List<T> archived, Comparator<T> order, Limit limit) {
+        return archived.isEmpty() ? recent : merge(List.of(recent, archived), order, limit);
+    }
+
+    /**
+     * Merges pages read with the same cursor and limit into one, keeping the listing order.
+     */
+    private static <T> List<T> merge(List<List<T>> pages, Comparator<T> order, Limit limit) {
+        if (pages.size() == 1) {
+            return pages.get(0);
+        }
+        List<T> merged = new ArrayList<>();
+        pages.forEach(merged::addAll);
+        merged.sort(order);
+        return limit.isLimited() && merged.size() > limit.max() ? merged.subList(0, limit.max()) : merged;
+    }
+
+    private Limit toLimit(Integer size) {
+        return size == null ? Limit.unlimited() : Limit.of(size);
+    }
 }
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+
+/**
+ * The pieces {@link ReplicaRoutingConfig} and {@link ShardingConfig} share.
+ */
+final class DataSourcePools {
+    private DataSourcePools() {
+    }
+
+    /**
+     * A pool for {@code url} with the driver and credentials of {@code spring.datasource}.
+     */
+    static HikariDataSource pool(DataSourceProperties properties, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        pool.setPoolName("shareit-" + name);
+        return pool;
+    }
+
+    /**
+     * Runs the schema scripts of the primary on an embedded database, which nothing else would initialize, and
+     * returns whether it did.
+     */
+    static boolean initializeEmbedded(HikariDataSource pool, DataSourceProperties properties,
+                                      ObjectProvider<SqlInitializationProperties> sqlInit) {
+        SqlInitializationProperties settings = sqlInit.getIfAvailable();
+        if (settings == null || !EmbeddedDatabaseConnection.isEmbedded(properties.determineDriverClassName(),
+            pool.getJdbcUrl())) {
+            return false;
+        }
+        new SqlDataSourceScriptDatabaseInitializer(pool, settings).initializeDatabase();
+        return true;
+    }
+
+    /**
+     * Hibernate keeps a session's connection until the session closes by default, which with open session in view
+     * pins a whole request to the data source its first transaction picked. Releasing it after every transaction
+     * lets each one be routed on its own.
+     */
+    static HibernatePropertiesCustomizer releaseAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
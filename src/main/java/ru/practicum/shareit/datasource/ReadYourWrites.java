@@ -0,0 +1,51 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the users who wrote within the last {@code shareit.datasource.read-your-writes}, a bound on the
+ * replication lag, so that their reads go to the primary and see their own writes. Expired entries are dropped when
+ * read and swept once the map grows past {@link #SWEEP_THRESHOLD}.
+ */
+@Component
+public class ReadYourWrites {
+    static final int SWEEP_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final ConcurrentMap<Long, Long> writtenUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWrites(@Value("${shareit.datasource.read-your-writes:PT5S}") Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void wrote(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        writtenUntil.put(userId, now + windowNanos);
+        if (writtenUntil.size() > SWEEP_THRESHOLD) {
+            writtenUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    public boolean isSticky(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        Long until = writtenUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        writtenUntil.remove(userId, until);
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service operation that tolerates replication lag. The operation runs in one read-only
+ * transaction, which {@link ReplicaRoutingDataSource} serves from a replica unless the current user has written
+ * recently. Reads outside such operations, background jobs and the checks of write operations among them, always
+ * go to the primary.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Transactional(readOnly = true)
+public @interface ReplicaRead {
+}
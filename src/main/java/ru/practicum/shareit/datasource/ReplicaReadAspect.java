@@ -0,0 +1,22 @@
+package ru.practicum.shareit.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ReplicaReadAspect {
+    @Around("@annotation(ru.practicum.shareit.datasource.ReplicaRead)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outermost = RoutingContext.enterReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (outermost) {
+                RoutingContext.leaveReplicaRead();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits reads from writes once {@code shareit.datasource.replica-urls} lists the replicas. The primary is
+ * {@code spring.datasource.url}, the replicas share its driver and credentials. Embedded replicas, two in-memory H2
+ * databases for local runs, get the same schema scripts as the primary; real ones are expected to replicate it.
+ */
+@Configuration
+@ConditionalOnProperty("shareit.datasource.replica-urls")
+public class ReplicaRoutingConfig {
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                             ObjectProvider<SqlInitializationProperties> sqlInit,
+                                                             ReadYourWrites readYourWrites,
+                                                             @Value("${shareit.datasource.replica-urls}")
+                                                             List<String> replicaUrls) {
+        HikariDataSource primary = DataSourcePools.pool(properties, properties.determineUrl(),
+            ReplicaRoutingDataSource.PRIMARY);
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourcePools.pool(properties, replicaUrls.get(i).trim(),
+                ReplicaRoutingDataSource.replicaKey(i));
+            replica.setReadOnly(true);
+            DataSourcePools.initializeEmbedded(replica, properties, sqlInit);
+            replicas.add(replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, readYourWrites);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer replicaRoutingCustomizer() {
+        return DataSourcePools.releaseAfterTransaction();
+    }
+}
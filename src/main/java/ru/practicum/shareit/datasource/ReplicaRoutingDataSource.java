@@ -0,0 +1,66 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the read-only transactions of {@link ReplicaRead} operations to the replicas in turn and everything else to
+ * the primary. A read-write transaction marks the user of the {@link RoutingContext} in {@link ReadYourWrites},
+ * which keeps that user's reads on the primary until the replicas have caught up. The routing key is looked up when
+ * a physical connection is fetched, so the data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} for the transaction state to be known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        pools.add(primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+            replicaKeys.add(replicaKey(i));
+            pools.add(replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    public static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = RoutingContext.user();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (RoutingContext.isReplicaRead() && !replicaKeys.isEmpty() && !readYourWrites.isSticky(userId)) {
+                return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            readYourWrites.wrote(userId);
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.datasource;
+
+/**
+ * The per-thread state the routing data sources route on: the user the current request acts for and whether the
+ * thread is inside a {@link ReplicaRead} operation for {@link ReplicaRoutingDataSource}, the shard the thread works
+ * on for {@link ShardRoutingDataSource}.
+ */
+public final class RoutingContext {
+    private static final ThreadLocal<Long> USER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static Long user() {
+        return USER.get();
+    }
+
+    public static void setUser(Long userId) {
+        if (userId == null) {
+            USER.remove();
+        } else {
+            USER.set(userId);
+        }
+    }
+
+    public static boolean isReplicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    /**
+     * Enters a replica read and returns whether it is the outermost one, the one that has to leave it.
+     */
+    static boolean enterReplicaRead() {
+        if (REPLICA_READ.get() != null) {
+            return false;
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void leaveReplicaRead() {
+        REPLICA_READ.remove();
+    }
+
+    /**
+     * The shard the thread works on, {@link Shards#HOME} unless an operation has chosen one.
+     */
+    public static int shard() {
+        Integer shard = SHARD.get();
+        return shard == null ? Shards.HOME : shard;
+    }
+
+    /**
+     * Switches the thread to {@code shard} and returns the shard it worked on before, {@code null} for none.
+     */
+    static Integer enterShard(int shard) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        return previous;
+    }
+
+    static void leaveShard(Integer previous) {
+        if (previous == null) {
+            SHARD.remove();
+        } else {
+            SHARD.set(previous);
+        }
+    }
+}
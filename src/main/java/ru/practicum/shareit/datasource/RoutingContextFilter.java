@@ -0,0 +1,40 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.io.IOException;
+
+/**
+ * Exposes the sharer the request acts for to {@link RoutingContext}. The header is not validated here, a malformed
+ * one just leaves the request without a user and the principal resolver rejects it later.
+ */
+@Component
+public class RoutingContextFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        RoutingContext.setUser(parse(request.getHeader(SharerPrincipal.HEADER)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingContext.setUser(null);
+        }
+    }
+
+    private static Long parse(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the service method parameter that picks the shard the whole operation runs on, see {@link ShardKeyAspect}.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+    Kind value();
+
+    enum Kind {
+        /**
+         * A user id, the operation concerns the items the user owns.
+         */
+        OWNER,
+        /**
+         * An item or booking id, which names its shard.
+         */
+        ID
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs a service method with a {@link ShardKey} parameter on the shard that parameter names.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ShardKeyAspect {
+    private final Shards shards;
+    private final ConcurrentMap<Method, Optional<KeyParameter>> keys = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.practicum.shareit..service.*ServiceImpl.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Optional<KeyParameter> key = keys.computeIfAbsent(AopUtils.getMostSpecificMethod(method,
+            joinPoint.getTarget().getClass()), ShardKeyAspect::find);
+        if (key.isEmpty()) {
+            return joinPoint.proceed();
+        }
+        Long value = (Long) joinPoint.getArgs()[key.get().index()];
+        int shard = key.get().kind() == ShardKey.Kind.OWNER ? shards.ofOwner(value) : shards.ofId(value);
+        Integer previous = RoutingContext.enterShard(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingContext.leaveShard(previous);
+        }
+    }
+
+    private static Optional<KeyParameter> find(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey shardKey) {
+                    return Optional.of(new KeyParameter(i, shardKey.value()));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private record KeyParameter(int index, ShardKey.Kind kind) {
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shards the items, bookings and comments once {@code shareit.datasource.shard-urls} lists the shards, the home one
+ * first; {@code spring.datasource.url} is then unused. The shards share the driver and credentials of
+ * {@code spring.datasource}. Embedded shards, several in-memory H2 databases for local runs, get the schema scripts
+ * and their id ranges here; real ones are expected to be provisioned with them. Sharding and read replicas both
+ * define the {@code dataSource} bean and cannot be combined.
+ * <p>
+ * Sharded mode gives up the pooled allocation of ids that lets a batch of inserts share one sequence call: every
+ * inserted item, booking and comment reads its own id from the sequence of its shard, see
+ * {@link #shardRoutingCustomizer()}.
+ */
+@Configuration
+@ConditionalOnProperty("shareit.datasource.shard-urls")
+public class ShardingConfig {
+    private static final List<String> SHARDED_SEQUENCES = List.of("ITEM_ID_SEQ", "BOOKING_ID_SEQ", "COMMENT_ID_SEQ");
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                         ObjectProvider<SqlInitializationProperties> sqlInit,
+                                                         @Value("${shareit.datasource.shard-urls}")
+                                                         List<String> shardUrls) {
+        List<HikariDataSource> shards = new ArrayList<>(shardUrls.size());
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource shard = DataSourcePools.pool(properties, shardUrls.get(i).trim(), "shard-" + i);
+            // the home shard is the primary data source, which spring.sql.init initializes
+            if (i != Shards.HOME && DataSourcePools.initializeEmbedded(shard, properties, sqlInit)) {
+                placeIds(shard, i);
+            }
+            shards.add(shard);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * Besides releasing connections after each transaction, turns the pooled id optimizer off: it caches one block
+     * of ids for the whole process, which would hand out ids drawn from one shard's range to rows of another.
+     * Every id is then read from the sequence of its shard, and Hibernate warns that it ignores the allocation size.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardRoutingCustomizer() {
+        HibernatePropertiesCustomizer releaseAfterTransaction = DataSourcePools.releaseAfterTransaction();
+        return properties -> {
+            releaseAfterTransaction.customize(properties);
+            properties.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER,
+                StandardOptimizerDescriptor.NONE.getExternalName());
+        };
+    }
+
+    /**
+     * Moves the sequences of the sharded tables to the start of the shard's id range. With the pooled optimizer
+     * off, Hibernate uses every value it reads from a sequence as an id as it is, so the values stay in the range.
+     */
+    private static void placeIds(DataSource shard, int index) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+        for (String sequence : SHARDED_SEQUENCES) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (index * Shards.ID_STRIDE + 1));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Places items, with their bookings and comments, on one of the {@code shareit.datasource.shard-urls} by owner id.
+ * Each shard draws the ids of those rows from its own range, {@code [shard * ID_STRIDE, (shard + 1) * ID_STRIDE)},
+ * so an id names its shard and, with ranges in shard order, results gathered shard by shard stay in id order. The
+ * users live on the {@link #HOME} shard, which generates their ids, and are copied to the others, which reference
+ * them. Without shards every operation runs on the one data source as before, on the calling thread.
+ * <p>
+ * Parallel shard queries run on virtual threads that take over the user and the replica read flag of the
+ * {@link RoutingContext} of the caller, and every {@link TaskDecorator} bean wraps them, so that thread-bound
+ * request state such as the statement count follows them.
+ */
+@Component
+public class Shards {
+    public static final int HOME = 0;
+    public static final long ID_STRIDE = 1L << 40;
+
+    private final int count;
+    private final ExecutorService executor;
+    private final List<TaskDecorator> taskDecorators;
+
+    @Autowired
+    public Shards(@Value("${shareit.datasource.shard-urls:}") List<String> shardUrls,
+                  ObjectProvider<TaskDecorator> taskDecorators) {
+        this(shardUrls, taskDecorators.orderedStream().toList());
+    }
+
+    public Shards(List<String> shardUrls, List<TaskDecorator> taskDecorators) {
+        this.count = Math.max(1, shardUrls.size());
+        this.executor = count > 1 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.taskDecorators = List.copyOf(taskDecorators);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int ofOwner(Long ownerId) {
+        return ownerId == null ? HOME : (int) Math.floorMod(ownerId, (long) count);
+    }
+
+    /**
+     * The shard of an item, booking or comment id; ids outside every range, which exist nowhere, map to
+     * {@link #HOME}.
+     */
+    public int ofId(Long id) {
+        if (id == null || id < 0) {
+            return HOME;
+        }
+        long shard = id / ID_STRIDE;
+        return shard < count ? (int) shard : HOME;
+    }
+
+    public <T> T on(int shard, Supplier<T> operation) {
+        Integer previous = RoutingContext.enterShard(shard);
+        try {
+            return operation.get();
+        } finally {
+            RoutingContext.leaveShard(previous);
+        }
+    }
+
+    /**
+     * Runs {@code operation} on every shard in turn, the home shard first.
+     */
+    public void forEach(Runnable operation) {
+        for (int shard = 0; shard < count; shard++) {
+            on(shard, () -> {
+                operation.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs {@code operation} on every shard but the home one, to copy a user written there.
+     */
+    public void forEachOther(Runnable operation) {
+        for (int shard = HOME + 1; shard < count; shard++) {
+            on(shard, () -> {
+                operation.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs {@code operation} on every shard in turn and adds up the counts it returns.
+     */
+    public int sum(IntSupplier operation) {
+        int sum = 0;
+        for (int shard = 0; shard < count; shard++) {
+            sum += on(shard, operation::getAsInt);
+        }
+        return sum;
+    }
+
+    /**
+     * Runs {@code query} on all shards in parallel and returns the result of each, in shard order.
+     */
+    public <T> List<List<T>> gather(Supplier<List<T>> query) {
+        if (count == 1) {
+            return List.of(query.get());
+        }
+        List<Future<List<T>>> pending = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            pending.add(submit(shard, query));
+        }
+        return join(pending);
+    }
+
+    /**
+     * Splits {@code ids} by shard, runs {@code query} for each part on its shard in parallel and concatenates the
+     * results in shard order, which keeps results sorted by id in order.
+     */
+    public <T> List<T> gatherIds(Collection<Long> ids, Function<List<Long>, List<T>> query) {
+        if (count == 1) {
+            return query.apply(ids instanceof List<Long> list ? list : List.copyOf(ids));
+        }
+        List<List<Long>> parts = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            parts.get(ofId(id)).add(id);
+        }
+        List<Future<List<T>>> pending = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            List<Long> part = parts.get(shard);
+            if (!part.isEmpty()) {
+                pending.add(submit(shard, () -> query.apply(part)));
+            }
+        }
+        List<T> gathered = new ArrayList<>();
+        join(pending).forEach(gathered::addAll);
+        return gathered;
+    }
+
+    private <T> Future<T> submit(int shard, Supplier<T> operation) {
+        Long user = RoutingContext.user();
+        boolean replicaRead = RoutingContext.isReplicaRead();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            RoutingContext.setUser(user);
+            boolean entered = replicaRead && RoutingContext.enterReplicaRead();
+            try {
+                return on(shard, operation);
+            } finally {
+                if (entered) {
+                    RoutingContext.leaveReplicaRead();
+                }
+                RoutingContext.setUser(null);
+            }
+        });
+        Runnable decorated = task;
+        for (TaskDecorator taskDecorator : taskDecorators) {
+            decorated = taskDecorator.decorate(decorated);
+        }
+        executor.execute(decorated);
+        return task;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static <T> List<List<T>> join(List<Future<List<T>>> pending) {
+        List<List<T>> results = new ArrayList<>(pending.size());
+        try {
+            for (Future<List<T>> future : pending) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while gathering from the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Gathering from the shards failed", e.getCause());
+        }
+        return results;
+    }
+}
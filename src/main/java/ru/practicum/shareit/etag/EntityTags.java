@@ -0,0 +1,35 @@
+package ru.practicum.shareit.etag;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong entity tags for {@code If-None-Match}: a SHA-256 prefix of the string forms of the given parts, which
+ * must therefore render every field of the representation, as the Lombok and record {@code toString()} do.
+ */
+public final class EntityTags {
+    private static final int TAG_BYTES = 16;
+    private static final char SEPARATOR = '\u001f';
+
+    private EntityTags() {
+    }
+
+    public static String of(Object... parts) {
+        StringBuilder content = new StringBuilder();
+        for (Object part : parts) {
+            content.append(part).append(SEPARATOR);
+        }
+        byte[] digest = sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return '"' + HexFormat.of().formatHex(digest, 0, TAG_BYTES) + '"';
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
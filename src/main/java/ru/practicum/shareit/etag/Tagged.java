@@ -0,0 +1,7 @@
+package ru.practicum.shareit.etag;
+
+/**
+ * A representation with the entity tag computed from the same read.
+ */
+public record Tagged<T>(T body, String tag) {
+}
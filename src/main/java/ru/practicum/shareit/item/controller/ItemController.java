@@ -1,10 +1,12 @@
 package ru.practicum.shareit.item.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -13,25 +15,38 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemField;
 import ru.practicum.shareit.item.dto.OutCommentDto;
+import ru.practicum.shareit.item.dto.TimeWindowDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+import ru.practicum.shareit.user.principal.SharerUser;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * TODO Sprint add-controllers.
  */
 @RestController
 @RequestMapping("/items")
-@Slf4j
 @Validated
 public class ItemController {
+    private static final Duration DEFAULT_AVAILABILITY_RANGE = Duration.ofDays(30);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final long MAX_PAGE_SIZE = 1000;
     private final ItemService itemService;
 
     @Autowired
@@ -41,49 +56,91 @@ public class ItemController {
 
     @PostMapping
     public ResponseEntity<ItemDto> addItem(@RequestBody @NotNull @Valid ItemDto itemDto,
-                                           @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
-        ItemDto created = itemService.addItem(itemDto, userId);
-        log.info("ItemDto created: {}", created.toString());
+                                           SharerPrincipal sharer) {
+        ItemDto created = itemService.addItem(itemDto, sharer.id());
         return new ResponseEntity<>(created, HttpStatus.OK);
     }
 
     @PatchMapping("/{itemId}")
     public ResponseEntity<ItemDto> editItem(@RequestBody @NotNull @Valid ItemDto itemDto,
-                                            @RequestHeader("X-Sharer-User-Id") @NotNull @Min(1) Long userId,
+                                            @SharerUser(verified = false) SharerPrincipal sharer,
                                             @PathVariable @NotNull @Min(1) Long itemId) {
-        ItemDto updated = itemService.editItem(itemDto, userId, itemId);
-        log.info("ItemDto updated: {}", updated.toString());
+        ItemDto updated = itemService.editItem(itemDto, sharer.id(), itemId);
         return new ResponseEntity<>(updated, HttpStatus.OK);
     }
 
+    /**
+     * A conditional request is answered with {@code 304} after the one-row tag lookup when the tag still matches,
+     * before the item is loaded with its bookings and comments. Otherwise the tag comes from the row the body is
+     * rendered from.
+     */
     @GetMapping("/{itemId}")
     public ResponseEntity<ItemDto> getItem(@PathVariable @NotNull @Min(1) Long itemId,
-                                           @RequestHeader("X-Sharer-User-Id") @NotNull @Min(1) Long userId) {
-        ItemDto found = itemService.getItem(itemId, userId);
-        log.info("ItemDto found: {}", found.toString());
-        return new ResponseEntity<>(found, HttpStatus.OK);
+                                           @SharerUser(verified = false) SharerPrincipal sharer,
+                                           WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String tag = itemService.getItemTag(itemId, sharer.id());
+            if (tag != null && request.checkNotModified(tag)) {
+                return null;
+            }
+        }
+        Tagged<ItemDto> found = itemService.getTaggedItem(itemId, sharer.id());
+        return ResponseEntity.ok().eTag(found.tag()).body(found.body());
     }
 
     @GetMapping
-    public ResponseEntity<List<ItemDto>> getItems(@RequestHeader("X-Sharer-User-Id") @NotNull @Min(1) Long userId) {
-        List<ItemDto> found = itemService.getItems(userId);
-        log.info("ItemDtoList found: {}", found.toString());
+    public ResponseEntity<List<ItemDto>> getItems(@SharerUser(verified = false) SharerPrincipal sharer) {
+        List<ItemDto> found = itemService.getItems(sharer.id());
         return new ResponseEntity<>(found, HttpStatus.OK);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ItemDto>> findItems(@RequestParam(value = "text", required = false) String text) {
         List<ItemDto> found = itemService.findItems(text);
-        log.info("ItemDtoList searched by text and found: {}", found.toString());
         return new ResponseEntity<>(found, HttpStatus.OK);
     }
 
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getItems(@SharerUser(verified = false) SharerPrincipal sharer,
+                                                              @RequestParam String fields) {
+        List<Map<String, Object>> found = itemService.getItems(sharer.id(), Projection.parse(fields, ItemField.class));
+        return new ResponseEntity<>(found, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/search", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> findItems(@RequestParam(value = "text", required = false) String text,
+                                                               @RequestParam String fields) {
+        List<Map<String, Object>> found = itemService.findItems(text, Projection.parse(fields, ItemField.class));
+        return new ResponseEntity<>(found, HttpStatus.OK);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<List<TimeWindowDto>> getAvailability(@PathVariable @NotNull @Min(1) Long itemId,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime windowStart = from == null ? LocalDateTime.now() : from;
+        LocalDateTime windowEnd = to == null ? windowStart.plus(DEFAULT_AVAILABILITY_RANGE) : to;
+        List<TimeWindowDto> found = itemService.getAvailability(itemId, windowStart, windowEnd);
+        return new ResponseEntity<>(found, HttpStatus.OK);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<ItemCommentDto>> getComments(@PathVariable @NotNull @Min(1) Long itemId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false, defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) Integer size) {
+        List<ItemCommentDto> found = itemService.getComments(itemId, CommentCursor.decode(cursor), size);
+        HttpHeaders headers = new HttpHeaders();
+        if (found.size() == size) {
+            headers.set(NEXT_CURSOR_HEADER, CommentCursor.after(found.get(found.size() - 1)).encode());
+        }
+        return new ResponseEntity<>(found, headers, HttpStatus.OK);
+    }
+
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<OutCommentDto> addComment(@RequestBody @NotNull @Valid InCommentDto inCommentDto,
                                                     @PathVariable @NotNull @Min(1) Long itemId,
-                                                    @RequestHeader("X-Sharer-User-Id") @NotNull @Min(1) Long userId) {
-        OutCommentDto created = itemService.addComment(inCommentDto, itemId, userId);
-        log.info("OutCommentDto created: {}", created.toString());
+                                                    @SharerUser(verified = false) SharerPrincipal sharer) {
+        OutCommentDto created = itemService.addComment(inCommentDto, itemId, sharer.id());
         return new ResponseEntity<>(created, HttpStatus.OK);
     }
 }
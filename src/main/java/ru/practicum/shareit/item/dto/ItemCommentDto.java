@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Comment as listed for an item, newest first. The author is flattened to id and name, so the read queries
+ * select scalar columns only.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemCommentDto {
+    private Long id;
+    private Long itemId;
+    private String text;
+    private CommentAuthorDto author;
+    private LocalDateTime created;
+
+    public ItemCommentDto(Long id, Long itemId, String text, Long authorId, String authorName,
+                          LocalDateTime created) {
+        this(id, itemId, text, new CommentAuthorDto(authorId, authorName), created);
+    }
+}
@@ -6,8 +6,8 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.validation.NullableNotBlankConstraint;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -25,6 +25,11 @@ public class ItemDto {
     private User user;
     private Booking lastBooking;
     private Booking nextBooking;
+    /**
+     * The newest comments only, {@code GET /items/{itemId}/comments} pages through the rest.
+     */
     @Builder.Default
-    private Set<String> comments = new HashSet<>();
+    private List<ItemCommentDto> comments = new ArrayList<>();
+    @Builder.Default
+    private Integer commentCount = 0;
 }
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.projection.ProjectedField;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The fields of {@link ItemDto} an item listing can be narrowed to. The bookings and comments are only part of
+ * the full representation. The expressions refer to the item as {@code i} and its owner as {@code u}, which is
+ * joined only when selected.
+ */
+public enum ItemField implements ProjectedField<Item> {
+    ID("id", Item::getId, "i.id"),
+    NAME("name", Item::getName, "i.name"),
+    DESCRIPTION("description", Item::getDescription, "i.description"),
+    AVAILABLE("available", Item::getAvailable, "i.available"),
+    USER("user", Item::getUser, "u.id", "u.name", "u.email") {
+        @Override
+        public Object value(Object[] row, int from) {
+            return new User((Long) row[from], (String) row[from + 1], (String) row[from + 2]);
+        }
+    },
+    COMMENT_COUNT("commentCount", Item::getCommentCount, "i.commentCount");
+
+    private final String fieldName;
+    private final Function<Item, Object> getter;
+    private final List<String> expressions;
+
+    ItemField(String fieldName, Function<Item, Object> getter, String... expressions) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.expressions = List.of(expressions);
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public List<String> expressions() {
+        return expressions;
+    }
+
+    @Override
+    public Object value(Item source) {
+        return getter.apply(source);
+    }
+}
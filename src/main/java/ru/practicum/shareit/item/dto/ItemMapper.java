@@ -9,7 +9,7 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Set;
+import java.util.List;
 
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
     nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -20,11 +20,20 @@ public interface ItemMapper {
     @Mapping(target = "lastBooking", source = "last", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
     @Mapping(target = "nextBooking", source = "next", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
     @Mapping(target = "comments", source = "comments", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
-    ItemDto toDto(Item item, User user, Booking last, Booking next, Set<String> comments);
+    @Mapping(target = "commentCount", source = "item.commentCount")
+    ItemDto toDto(Item item, User user, Booking last, Booking next, List<ItemCommentDto> comments);
 
     @Mapping(target = "user.id", source = "userId")
+    @Mapping(target = "lastBookingId", ignore = true)
+    @Mapping(target = "nextBookingId", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     Item toEntity(ItemDto itemDto, Long userId);
 
     @Mapping(target = "user", ignore = true)
+    @Mapping(target = "lastBookingId", ignore = true)
+    @Mapping(target = "nextBookingId", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     Item updateEntity(@MappingTarget Item item, ItemDto itemDto);
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+/**
+ * Item with its owner and the bookings its last/next pointers refer to, read in one row.
+ */
+public record ItemWithBookings(Item item, User user, Booking lastBooking, Booking nextBooking) {
+    /**
+     * Used by the queries, which also select the bookers so that they are in the persistence context and
+     * rendering the bookings needs no further reads.
+     */
+    public ItemWithBookings(Item item, User user, Booking lastBooking, User lastBooker, Booking nextBooking,
+                            User nextBooker) {
+        this(item, user, lastBooking, nextBooking);
+    }
+}
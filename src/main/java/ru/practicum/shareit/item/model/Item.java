@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -35,4 +36,26 @@ public class Item {
     @JoinColumn(name = "OWNER_ID", nullable = false, updatable = false)
     private User user;
     private Boolean available;
+    /**
+     * Latest booking that has ended and earliest that has not started yet, maintained by
+     * {@code ItemBookingPointers} only, hence read-only for the entity.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long lastBookingId;
+    @Column(insertable = false, updatable = false)
+    private Long nextBookingId;
+    /**
+     * Number of comments, recounted by {@code ItemRepository.refreshCommentCounts} whenever comments are added or
+     * removed, so the item view does not count them on every read.
+     */
+    @Builder.Default
+    @Column(insertable = false, updatable = false)
+    private Integer commentCount = 0;
+    /**
+     * Bumped by {@code ItemRepository.refreshCommentCounts}, so that the entity tag of the item view changes with
+     * the comments it embeds, author renames included, although the item row itself does not.
+     */
+    @Builder.Default
+    @Column(insertable = false, updatable = false)
+    private Long revision = 0L;
 }
@@ -1,12 +1,35 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.storage.EntityRepository;
 
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
-    @Query("select c.text from Comment c where c.item.id = :itemId")
-    Set<String> findCommentTextByItemId(Long itemId);
+public interface CommentRepository extends EntityRepository<Comment> {
+    @Query("select new ru.practicum.shareit.item.dto.ItemCommentDto(c.id, c.item.id, c.text, a.id, a.name, c.created) " +
+        "from Comment c join c.author a " +
+        "where c.item.id = :itemId " +
+        "and c.created <= :cursorCreated and (c.created < :cursorCreated or c.id < :cursorId) " +
+        "order by c.created desc, c.id desc")
+    List<ItemCommentDto> findAllByItemId(Long itemId, LocalDateTime cursorCreated, Long cursorId, Limit limit);
+
+    /**
+     * The newest {@code perItem} comments of each item, ordered by item and then newest first.
+     */
+    @Query("select new ru.practicum.shareit.item.dto.ItemCommentDto(r.id, r.itemId, r.text, r.authorId, r.authorName, " +
+        "r.created) " +
+        "from (select c.id id, c.item.id itemId, c.text text, a.id authorId, a.name authorName, c.created created, " +
+        "row_number() over (partition by c.item.id order by c.created desc, c.id desc) position " +
+        "from Comment c join c.author a where c.item.id in :itemIds) r " +
+        "where r.position <= :perItem " +
+        "order by r.itemId, r.created desc, r.id desc")
+    List<ItemCommentDto> findNewestByItemIdIn(Collection<Long> itemIds, int perItem);
+
+    @Query("select distinct c.item.id from Comment c where c.author.id = :authorId")
+    List<Long> findItemIdsByAuthorId(Long authorId);
 }
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.CommentCursor;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.IdIndex;
+import ru.practicum.shareit.storage.StubRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserStubRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("memory")
+public class CommentStubRepository extends StubRepository<Comment> implements CommentRepository {
+    private static final Comparator<Comment> NEWEST_FIRST = Comparator.comparing(Comment::getCreated)
+        .thenComparing(Comment::getId).reversed();
+
+    private final ItemStubRepository itemRepository;
+    private final UserStubRepository userRepository;
+    private final IdIndex itemIndex = new IdIndex();
+    private final IdIndex authorIndex = new IdIndex();
+
+    public CommentStubRepository(ItemStubRepository itemRepository, UserStubRepository userRepository) {
+        super(Comment.class);
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        itemRepository.setCommentRepository(this);
+        itemRepository.onDelete(item -> deleteAllById(itemIndex.get(item.getId())));
+        userRepository.onDelete(user -> deleteAllById(authorIndex.get(user.getId())));
+    }
+
+    @Override
+    public List<ItemCommentDto> findAllByItemId(Long itemId, LocalDateTime cursorCreated, Long cursorId,
+                                                Limit limit) {
+        Stream<ItemCommentDto> page = byItem(itemId)
+            .filter(x -> x.getCreated().isBefore(cursorCreated) ||
+                (x.getCreated().isEqual(cursorCreated) && x.getId() < cursorId))
+            .sorted(NEWEST_FIRST)
+            .map(this::toView)
+            .filter(Objects::nonNull);
+        if (limit.isLimited()) {
+            page = page.limit(limit.max());
+        }
+        return page.toList();
+    }
+
+    @Override
+    public List<ItemCommentDto> findNewestByItemIdIn(Collection<Long> itemIds, int perItem) {
+        return itemIds.stream()
+            .sorted()
+            .flatMap(x -> findAllByItemId(x, CommentCursor.FIRST.created(), CommentCursor.FIRST.id(),
+                Limit.of(perItem)).stream())
+            .toList();
+    }
+
+    @Override
+    public List<Long> findItemIdsByAuthorId(Long authorId) {
+        return authorIndex.get(authorId).stream()
+            .map(this::stored)
+            .filter(Objects::nonNull)
+            .map(x -> x.getItem().getId())
+            .distinct()
+            .toList();
+    }
+
+    /**
+     * Number of the item's comments, for the item comment counts.
+     */
+    public int countByItemId(Long itemId) {
+        return (int) byItem(itemId).count();
+    }
+
+    @Override
+    protected Long getId(Comment comment) {
+        return comment.getId();
+    }
+
+    @Override
+    protected void setId(Comment comment, Long id) {
+        comment.setId(id);
+    }
+
+    @Override
+    protected Comment detach(Comment comment) {
+        LocalDateTime created = comment.getCreated() == null ? LocalDateTime.now() : comment.getCreated();
+        return copy(comment, Item.builder().id(comment.getItem().getId()).build(),
+            User.builder().id(comment.getAuthor().getId()).build(), created);
+    }
+
+    @Override
+    protected Comment attach(Comment comment) {
+        Optional<Item> item = itemRepository.findById(comment.getItem().getId());
+        Optional<User> author = userRepository.findById(comment.getAuthor().getId());
+        if (item.isEmpty() || author.isEmpty()) {
+            return null;
+        }
+        return copy(comment, item.get(), author.get(), comment.getCreated());
+    }
+
+    @Override
+    protected void index(Comment previous, Comment comment) {
+        itemIndex.add(comment.getItem().getId(), comment.getId());
+        authorIndex.add(comment.getAuthor().getId(), comment.getId());
+    }
+
+    @Override
+    protected void unindex(Comment comment) {
+        itemIndex.remove(comment.getItem().getId(), comment.getId());
+        authorIndex.remove(comment.getAuthor().getId(), comment.getId());
+    }
+
+    private Stream<Comment> byItem(Long itemId) {
+        return itemIndex.get(itemId).stream().map(this::stored).filter(Objects::nonNull);
+    }
+
+    private ItemCommentDto toView(Comment comment) {
+        return userRepository.findById(comment.getAuthor().getId())
+            .map(x -> new ItemCommentDto(comment.getId(), comment.getItem().getId(), comment.getText(), x.getId(),
+                x.getName(), comment.getCreated()))
+            .orElse(null);
+    }
+
+    private static Comment copy(Comment comment, Item item, User author, LocalDateTime created) {
+        return Comment.builder().id(comment.getId()).text(comment.getText()).item(item).author(author)
+            .created(created).build();
+    }
+}
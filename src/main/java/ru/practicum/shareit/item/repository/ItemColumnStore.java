@@ -0,0 +1,313 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.user.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar item storage for the {@code memory} profile. Rows live in fixed-size chunks of primitive columns
+ * addressed by the item id itself, so there are no boxed keys, map nodes or entity objects per item: the owner and
+ * the last/next booking pointers are {@code long}s ({@code 0} for no booking), the comment count an {@code int},
+ * the flags a {@code byte}, and the text a single UTF-8 {@code byte[]} holding {@code name + '\0' + description},
+ * followed by its lowercased copy for the search unless the text has no upper case letters. The lowercased copy is
+ * built once per write, so searches compare bytes without allocating.
+ * <p>
+ * Rows are written under the write lock of their {@link StampedLock} stripe and read with optimistic stamps,
+ * so readers never block unless they race with a write of the same stripe.
+ */
+public class ItemColumnStore implements EntityStore<Item> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int ROW_MASK = CHUNK_SIZE - 1;
+    private static final int LOCK_STRIPES = 64;
+    private static final byte PRESENT = 1;
+    private static final byte AVAILABLE = 2;
+    private static final byte NULL_NAME = 4;
+    private static final byte NULL_DESCRIPTION = 8;
+    private static final char SEPARATOR = '\0';
+
+    private final StampedLock[] rowLocks = new StampedLock[LOCK_STRIPES];
+    private final Object directoryLock = new Object();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Chunk[] chunks = new Chunk[16];
+
+    public ItemColumnStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            rowLocks[i] = new StampedLock();
+        }
+    }
+
+    @Override
+    public Item get(long id) {
+        Chunk chunk = chunk(id);
+        if (chunk == null) {
+            return null;
+        }
+        return read(chunk, (int) (id & ROW_MASK), id).toItem(id);
+    }
+
+    @Override
+    public Item put(long id, Item item) {
+        Chunk chunk = ensureChunk(id);
+        int row = (int) (id & ROW_MASK);
+        String name = item.getName();
+        String description = item.getDescription();
+        String text = (name == null ? "" : name) + SEPARATOR + (description == null ? "" : description);
+        byte flags = (byte) (PRESENT | (Boolean.TRUE.equals(item.getAvailable()) ? AVAILABLE : 0) |
+            (name == null ? NULL_NAME : 0) | (description == null ? NULL_DESCRIPTION : 0));
+        byte[] original = text.getBytes(StandardCharsets.UTF_8);
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        byte[] bytes = original;
+        if (!lowerText.equals(text)) {
+            byte[] lower = lowerText.getBytes(StandardCharsets.UTF_8);
+            bytes = Arrays.copyOf(original, original.length + lower.length);
+            System.arraycopy(lower, 0, bytes, original.length, lower.length);
+        }
+        int nameLength = name == null ? 0 : name.getBytes(StandardCharsets.UTF_8).length;
+
+        StampedLock lock = rowLock(id);
+        long stamp = lock.writeLock();
+        Item previous;
+        try {
+            previous = chunk.read(row).toItem(id);
+            chunk.owners[row] = item.getUser().getId();
+            chunk.lastBookings[row] = pointer(item.getLastBookingId());
+            chunk.nextBookings[row] = pointer(item.getNextBookingId());
+            chunk.commentCounts[row] = item.getCommentCount() == null ? 0 : item.getCommentCount();
+            chunk.revisions[row] = item.getRevision() == null ? 0 : item.getRevision();
+            chunk.nameLengths[row] = nameLength;
+            chunk.textLengths[row] = original.length;
+            chunk.texts[row] = bytes;
+            chunk.flags[row] = flags;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public Item remove(long id) {
+        Chunk chunk = chunk(id);
+        if (chunk == null) {
+            return null;
+        }
+        int row = (int) (id & ROW_MASK);
+        StampedLock lock = rowLock(id);
+        long stamp = lock.writeLock();
+        Item previous;
+        try {
+            previous = chunk.read(row).toItem(id);
+            chunk.flags[row] = 0;
+            chunk.owners[row] = 0;
+            chunk.lastBookings[row] = 0;
+            chunk.nextBookings[row] = 0;
+            chunk.commentCounts[row] = 0;
+            chunk.revisions[row] = 0;
+            chunk.nameLengths[row] = 0;
+            chunk.textLengths[row] = 0;
+            chunk.texts[row] = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (previous != null) {
+            size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    @Override
+    public LongStream ids() {
+        Chunk[] current = chunks;
+        return IntStream.range(0, current.length)
+            .filter(x -> current[x] != null)
+            .mapToObj(x -> current[x].ids((long) x << CHUNK_BITS))
+            .flatMapToLong(x -> x);
+    }
+
+    @Override
+    public Stream<Item> values() {
+        return ids().mapToObj(this::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Ids of the available items whose name or description contains {@code lowerText}, in ascending order.
+     */
+    public LongStream search(String lowerText) {
+        byte[] needle = lowerText.getBytes(StandardCharsets.UTF_8);
+        Chunk[] current = chunks;
+        LongStream.Builder found = LongStream.builder();
+        for (int index = 0; index < current.length; index++) {
+            Chunk chunk = current[index];
+            if (chunk == null) {
+                continue;
+            }
+            long base = (long) index << CHUNK_BITS;
+            for (int row = 0; row < CHUNK_SIZE; row++) {
+                if ((chunk.flags[row] & AVAILABLE) != 0 && matches(chunk, row, base + row, needle)) {
+                    found.add(base + row);
+                }
+            }
+        }
+        return found.build();
+    }
+
+    private boolean matches(Chunk chunk, int row, long id, byte[] needle) {
+        StampedLock lock = rowLock(id);
+        long stamp = lock.tryOptimisticRead();
+        boolean matches = chunk.matches(row, needle);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                matches = chunk.matches(row, needle);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return matches;
+    }
+
+    private Row read(Chunk chunk, int row, long id) {
+        StampedLock lock = rowLock(id);
+        long stamp = lock.tryOptimisticRead();
+        Row read = chunk.read(row);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                read = chunk.read(row);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return read;
+    }
+
+    private Chunk chunk(long id) {
+        long index = id >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        return index < current.length ? current[(int) index] : null;
+    }
+
+    private Chunk ensureChunk(long id) {
+        if (id <= 0 || (id >>> CHUNK_BITS) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Item id " + id + " is out of the column store range");
+        }
+        Chunk chunk = chunk(id);
+        if (chunk != null) {
+            return chunk;
+        }
+        synchronized (directoryLock) {
+            int index = (int) (id >>> CHUNK_BITS);
+            Chunk[] current = chunks;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Chunk();
+            }
+            chunks = current;
+            return current[index];
+        }
+    }
+
+    private StampedLock rowLock(long id) {
+        return rowLocks[(int) (id & (LOCK_STRIPES - 1))];
+    }
+
+    private static long pointer(Long bookingId) {
+        return bookingId == null ? 0 : bookingId;
+    }
+
+    private static Long pointer(long bookingId) {
+        return bookingId == 0 ? null : bookingId;
+    }
+
+    private static boolean contains(byte[] haystack, int from, int to, byte[] needle) {
+        if (needle.length == 0) {
+            return true;
+        }
+        byte first = needle[0];
+        int last = to - needle.length;
+        for (int i = from; i <= last; i++) {
+            if (haystack[i] == first && Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Row(byte flags, long owner, long lastBooking, long nextBooking, int commentCount, long revision,
+                       int nameLength, int textLength, byte[] text) {
+        Item toItem(long id) {
+            if ((flags & PRESENT) == 0) {
+                return null;
+            }
+            return Item.builder()
+                .id(id)
+                .name((flags & NULL_NAME) == 0 ? new String(text, 0, nameLength, StandardCharsets.UTF_8) : null)
+                .description((flags & NULL_DESCRIPTION) == 0
+                    ? new String(text, nameLength + 1, textLength - nameLength - 1, StandardCharsets.UTF_8) : null)
+                .available((flags & AVAILABLE) != 0)
+                .user(User.builder().id(owner).build())
+                .lastBookingId(pointer(lastBooking))
+                .nextBookingId(pointer(nextBooking))
+                .commentCount(commentCount)
+                .revision(revision)
+                .build();
+        }
+    }
+
+    private static final class Chunk {
+        private final byte[] flags = new byte[CHUNK_SIZE];
+        private final long[] owners = new long[CHUNK_SIZE];
+        private final long[] lastBookings = new long[CHUNK_SIZE];
+        private final long[] nextBookings = new long[CHUNK_SIZE];
+        private final int[] commentCounts = new int[CHUNK_SIZE];
+        private final long[] revisions = new long[CHUNK_SIZE];
+        private final int[] nameLengths = new int[CHUNK_SIZE];
+        private final int[] textLengths = new int[CHUNK_SIZE];
+        private final byte[][] texts = new byte[CHUNK_SIZE][];
+
+        Row read(int row) {
+            return new Row(flags[row], owners[row], lastBookings[row], nextBookings[row], commentCounts[row],
+                revisions[row], nameLengths[row], textLengths[row], texts[row]);
+        }
+
+        /**
+         * Reads without a lock, so a racing write may pair a text with a stale length: the bounds are clamped and
+         * the caller discards the result unless its stamp is still valid.
+         */
+        boolean matches(int row, byte[] needle) {
+            byte[] text = texts[row];
+            if ((flags[row] & (PRESENT | AVAILABLE)) != (PRESENT | AVAILABLE) || text == null) {
+                return false;
+            }
+            int textLength = Math.min(textLengths[row], text.length);
+            return text.length > textLength
+                ? contains(text, textLength, text.length, needle) : contains(text, 0, textLength, needle);
+        }
+
+        LongStream ids(long base) {
+            return IntStream.range(0, CHUNK_SIZE)
+                .filter(x -> (flags[x] & PRESENT) != 0)
+                .mapToLong(x -> base + x);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.projection.Projection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item listings narrowed to a sparse fieldset, selecting only the projected columns and joining the owner only
+ * when one of its fields is selected. Both are ordered by id.
+ */
+public interface ItemProjectionRepository {
+    List<Map<String, Object>> findProjectedByUserId(Projection<Item, ItemField> projection, Long userId);
+
+    List<Map<String, Object>> findProjectedByIdIn(Projection<Item, ItemField> projection, Collection<Long> itemIds);
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.projection.Projection;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class ItemProjectionRepositoryImpl implements ItemProjectionRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findProjectedByUserId(Projection<Item, ItemField> projection, Long userId) {
+        return find(projection, "i.user.id = :userId", "userId", userId);
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByIdIn(Projection<Item, ItemField> projection,
+                                                         Collection<Long> itemIds) {
+        return find(projection, "i.id in :itemIds", "itemIds", itemIds);
+    }
+
+    private List<Map<String, Object>> find(Projection<Item, ItemField> projection, String filter, String parameter,
+                                           Object value) {
+        // the id is always read to order by it, so a single selected column still comes back as a row
+        String hql = "select i.id, " + projection.select() + " from Item i" +
+            (projection.has(ItemField.USER) ? " join i.user u" : "") +
+            " where " + filter + " order by i.id";
+        return entityManager.createQuery(hql, Object[].class)
+            .setParameter(parameter, value)
+            .getResultList().stream()
+            .map(x -> projection.toMap(x, 1))
+            .toList();
+    }
+}
@@ -1,17 +1,90 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemViewState;
+import ru.practicum.shareit.item.dto.ItemWithBookings;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.storage.EntityRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends EntityRepository<Item>, ItemProjectionRepository {
     Optional<Item> findByUserIdAndId(Long userId, Long itemId);
 
     List<Item> findAllByUserId(Long userId);
 
-    @Query("select i from Item i where (LOWER(i.name) like CONCAT('%', CONCAT(LOWER(:text), '%')) OR LOWER(i.description) like CONCAT('%', CONCAT(LOWER(:text), '%'))) AND i.available = TRUE")
+    @Query("select new ru.practicum.shareit.item.dto.ItemWithBookings(i, u, l, lb, n, nb) " +
+        "from Item i join i.user u " +
+        "left join Booking l on l.id = i.lastBookingId left join l.booker lb " +
+        "left join Booking n on n.id = i.nextBookingId left join n.booker nb " +
+        "where i.id = :itemId")
+    Optional<ItemWithBookings> findWithBookingsById(Long itemId);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemWithBookings(i, u, l, lb, n, nb) " +
+        "from Item i join i.user u " +
+        "left join Booking l on l.id = i.lastBookingId left join l.booker lb " +
+        "left join Booking n on n.id = i.nextBookingId left join n.booker nb " +
+        "where u.id = :userId order by i.id")
+    List<ItemWithBookings> findAllWithBookingsByUserId(Long userId);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemViewState(u.id, i.name, i.description, i.available, " +
+        "i.commentCount, i.revision, u.name, u.email, l.id, l.version, lb.name, lb.email, " +
+        "n.id, n.version, nb.name, nb.email) " +
+        "from Item i join i.user u " +
+        "left join Booking l on l.id = i.lastBookingId left join l.booker lb " +
+        "left join Booking n on n.id = i.nextBookingId left join n.booker nb " +
+        "where i.id = :itemId")
+    Optional<ItemViewState> findViewStateById(Long itemId);
+
+    /**
+     * Points each item at its latest booking in {@code statuses} that ended before {@code now} and its earliest
+     * one that starts after {@code now}, in one statement for all {@code itemIds}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Item i set " +
+        "i.lastBookingId = (select b.id from Booking b where b.item.id = i.id and b.status in :statuses " +
+        "and b.end < :now order by b.end desc, b.id desc limit 1), " +
+        "i.nextBookingId = (select b.id from Booking b where b.item.id = i.id and b.status in :statuses " +
+        "and b.start > :now order by b.start asc, b.id asc limit 1) " +
+        "where i.id in :itemIds")
+    int refreshBookingPointers(Collection<Long> itemIds, Collection<Status> statuses, LocalDateTime now);
+
+    @Query("select i from Item i join fetch i.user where (LOWER(i.name) like CONCAT('%', CONCAT(LOWER(:text), '%')) OR LOWER(i.description) like CONCAT('%', CONCAT(LOWER(:text), '%'))) AND i.available = TRUE order by i.id")
     List<Item> findByNameOrDescriptionAndAvailable(String text);
+
+    /**
+     * The items with their owners, which a search gathering from several shards maps outside the session that
+     * read them.
+     */
+    @Query("select i from Item i join fetch i.user where i.id in :itemIds order by i.id")
+    List<Item> findAllWithUserByIdIn(Collection<Long> itemIds);
+
+    @Query("select i.id from Item i where (LOWER(i.name) like CONCAT('%', CONCAT(LOWER(:text), '%')) OR LOWER(i.description) like CONCAT('%', CONCAT(LOWER(:text), '%'))) AND i.available = TRUE order by i.id")
+    List<Long> findIdsByNameOrDescriptionAndAvailable(String text);
+
+    @Query("select i.id from Item i where i.user.id = :userId")
+    List<Long> findIdsByOwnerId(Long userId);
+
+    @Query("select new ru.practicum.shareit.item.search.ItemDocument(i.id, i.name, i.description) " +
+        "from Item i where i.available = TRUE")
+    List<ItemDocument> findAllAvailableDocuments();
+
+    /**
+     * Recounts the comments of {@code itemIds} and bumps their revision, which is also how a comment author's
+     * rename reaches the entity tags of the items they commented on.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Item i set i.commentCount = (select count(c) from Comment c where c.item.id = i.id), " +
+        "i.revision = i.revision + 1 " +
+        "where i.id in :itemIds")
+    int refreshCommentCounts(Collection<Long> itemIds);
 }
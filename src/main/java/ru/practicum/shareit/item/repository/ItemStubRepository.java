@@ -1,69 +1,226 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingStubRepository;
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.dto.ItemViewState;
+import ru.practicum.shareit.item.dto.ItemWithBookings;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.storage.LongMultimap;
+import ru.practicum.shareit.storage.StubRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserStubRepository;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.Optional;
 
 @Repository
-public class ItemStubRepository {
-    private final Map<Long, Item> itemStorage = new HashMap<>();
-    private final Map<Long, Set<Long>> userItemIndex = new HashMap<>();
+@Profile("memory")
+public class ItemStubRepository extends StubRepository<Item> implements ItemRepository {
+    private static final int OWNER_INDEX_SEGMENTS = 64;
 
-    private long generatedId = 1;
+    private final UserStubRepository userRepository;
+    private volatile BookingStubRepository bookingRepository;
+    private volatile CommentStubRepository commentRepository;
+    private final ItemColumnStore itemStore;
+    private final LongMultimap ownerIndex = new LongMultimap(OWNER_INDEX_SEGMENTS);
 
+    public ItemStubRepository(UserStubRepository userRepository) {
+        super(Item.class, new ItemColumnStore());
+        this.userRepository = userRepository;
+        this.itemStore = (ItemColumnStore) storage();
+        userRepository.onDelete(user -> deleteAllById(Arrays.stream(ownerIndex.removeAll(user.getId())).boxed()
+            .toList()));
+    }
 
-    public Item save(Item item, Long userId) {
-        if (!userItemIndex.containsKey(userId)) {
-            userItemIndex.put(userId, new HashSet<>());
-        }
-        Long itemId = item.getId();
-        if (itemId == null) {
-            item.setId(generatedId++);
-        } else if (!itemStorage.containsKey(itemId)) {
-            return null;
+    /**
+     * Registered by the booking repository, which depends on this one, to resolve the booking pointers.
+     */
+    public void setBookingRepository(BookingStubRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Registered by the comment repository, which depends on this one, to recount the comments.
+     */
+    public void setCommentRepository(CommentStubRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+
+    public long[] findIdsByUserId(Long userId) {
+        return ownerIndex.get(userId);
+    }
+
+    @Override
+    public List<Long> findIdsByOwnerId(Long userId) {
+        return Arrays.stream(findIdsByUserId(userId)).boxed().toList();
+    }
+
+    @Override
+    public Optional<Item> findByUserIdAndId(Long userId, Long itemId) {
+        return findById(itemId).filter(x -> x.getUser().getId().equals(userId));
+    }
+
+    @Override
+    public List<Item> findAllByUserId(Long userId) {
+        return resolve(Arrays.stream(findIdsByUserId(userId)).sorted().boxed());
+    }
+
+    @Override
+    public Optional<ItemWithBookings> findWithBookingsById(Long itemId) {
+        return findById(itemId).map(this::withBookings);
+    }
+
+    @Override
+    public List<ItemWithBookings> findAllWithBookingsByUserId(Long userId) {
+        return findAllByUserId(userId).stream()
+            .map(this::withBookings)
+            .toList();
+    }
+
+    @Override
+    public Optional<ItemViewState> findViewStateById(Long itemId) {
+        return findWithBookingsById(itemId).map(ItemViewState::of);
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByUserId(Projection<Item, ItemField> projection, Long userId) {
+        return findAllByUserId(userId).stream().map(projection::toMap).toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByIdIn(Projection<Item, ItemField> projection,
+                                                         Collection<Long> itemIds) {
+        return resolve(itemIds.stream().distinct().sorted()).stream().map(projection::toMap).toList();
+    }
+
+    @Override
+    public int refreshBookingPointers(Collection<Long> itemIds, Collection<Status> statuses, LocalDateTime now) {
+        BookingStubRepository bookings = bookingRepository;
+        int updated = 0;
+        for (Long itemId : itemIds) {
+            Long last = bookings.findLastBookingId(itemId, statuses, now);
+            Long next = bookings.findNextBookingId(itemId, statuses, now);
+            if (updateIf(itemId, x -> true, x -> {
+                x.setLastBookingId(last);
+                x.setNextBookingId(next);
+            })) {
+                updated++;
+            }
         }
-        itemId = item.getId();
-        itemStorage.put(itemId, item);
-        userItemIndex.get(userId).add(itemId);
-        return item;
+        return updated;
     }
 
-    public Item getById(Long itemId) {
-        if (!itemStorage.containsKey(itemId)) {
-            return null;
+    @Override
+    public int refreshCommentCounts(Collection<Long> itemIds) {
+        CommentStubRepository comments = commentRepository;
+        int updated = 0;
+        for (Long itemId : itemIds) {
+            int count = comments.countByItemId(itemId);
+            if (updateIf(itemId, x -> true, x -> {
+                x.setCommentCount(count);
+                x.setRevision(x.getRevision() + 1);
+            })) {
+                updated++;
+            }
         }
-        return itemStorage.get(itemId);
+        return updated;
     }
 
-    public List<Item> findByUserId(Long userId) {
-        return userItemIndex.get(userId).stream().map(itemStorage::get)
-            .toList();
+    @Override
+    public List<Item> findByNameOrDescriptionAndAvailable(String text) {
+        return resolve(itemStore.search(text.toLowerCase(Locale.ROOT)).sorted().boxed());
+    }
+
+    @Override
+    public List<Item> findAllWithUserByIdIn(Collection<Long> itemIds) {
+        return resolve(itemIds.stream().sorted());
     }
 
-    public List<Item> findByNameAndDescriptionAndAvailable(String text) {
-        return itemStorage.values().stream()
-            .filter(x -> (x.getName().toLowerCase().contains(text.toLowerCase()) ||
-                x.getDescription().toLowerCase().contains(text.toLowerCase())) &&
-                x.getAvailable().equals(true)
-            )
+    @Override
+    public List<Long> findIdsByNameOrDescriptionAndAvailable(String text) {
+        return itemStore.search(text.toLowerCase(Locale.ROOT)).sorted().boxed().toList();
+    }
+
+    @Override
+    public List<ItemDocument> findAllAvailableDocuments() {
+        return stored()
+            .filter(Item::getAvailable)
+            .map(x -> new ItemDocument(x.getId(), x.getName(), x.getDescription()))
             .toList();
+    }
+
+    @Override
+    protected Long getId(Item item) {
+        return item.getId();
+    }
+
+    @Override
+    protected void setId(Item item, Long id) {
+        item.setId(id);
+    }
+
+    @Override
+    protected Item detach(Item item) {
+        return copy(item, User.builder().id(item.getUser().getId()).build());
+    }
+
+    @Override
+    protected Item attach(Item item) {
+        return userRepository.findById(item.getUser().getId()).map(x -> copy(item, x)).orElse(null);
+    }
+
+    /**
+     * Keeps the stored booking pointers, comment count and revision, which only {@link #refreshBookingPointers} and
+     * {@link #refreshCommentCounts} write.
+     */
+    @Override
+    protected void reserve(Item previous, Item item) {
+        item.setLastBookingId(previous == null ? null : previous.getLastBookingId());
+        item.setNextBookingId(previous == null ? null : previous.getNextBookingId());
+        item.setCommentCount(previous == null ? 0 : previous.getCommentCount());
+        item.setRevision(previous == null ? 0L : previous.getRevision());
+    }
+
+    @Override
+    protected void index(Item previous, Item item) {
+        Long ownerId = item.getUser().getId();
+        if (previous == null) {
+            ownerIndex.add(ownerId, item.getId());
+        } else if (!previous.getUser().getId().equals(ownerId)) {
+            ownerIndex.add(ownerId, item.getId());
+            ownerIndex.remove(previous.getUser().getId(), item.getId());
+        }
+    }
 
+    @Override
+    protected void unindex(Item item) {
+        ownerIndex.remove(item.getUser().getId(), item.getId());
     }
 
-    public boolean containsUser(Long userId) {
-        return userItemIndex.containsKey(userId);
+    private ItemWithBookings withBookings(Item item) {
+        return new ItemWithBookings(item, item.getUser(), booking(item.getLastBookingId()),
+            booking(item.getNextBookingId()));
     }
 
-    public boolean containsItem(Long itemId) {
-        return itemStorage.containsKey(itemId);
+    private Booking booking(Long bookingId) {
+        return bookingId == null ? null : bookingRepository.findById(bookingId).orElse(null);
     }
 
-    public boolean userPossessesItem(Long userId, Long itemId) {
-        return userItemIndex.containsKey(userId) && userItemIndex.get(userId).contains(itemId);
+    private static Item copy(Item item, User user) {
+        return Item.builder().id(item.getId()).name(item.getName()).description(item.getDescription())
+            .available(item.getAvailable()).user(user).lastBookingId(item.getLastBookingId())
+            .nextBookingId(item.getNextBookingId()).commentCount(item.getCommentCount())
+            .revision(item.getRevision()).build();
     }
 }
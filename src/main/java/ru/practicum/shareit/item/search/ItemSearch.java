@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemSearch {
+    List<Item> search(String text);
+
+    /**
+     * The ids of the items {@link #search} finds, in ascending order.
+     */
+    long[] searchIds(String text);
+
+    void update(Item item);
+
+    /**
+     * Forgets the deleted items.
+     */
+    void remove(Collection<Long> itemIds);
+}
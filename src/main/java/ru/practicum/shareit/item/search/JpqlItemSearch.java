@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "shareit.search.index.enabled", havingValue = "false")
+@RequiredArgsConstructor
+public class JpqlItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+    private final Shards shards;
+
+    @Override
+    public List<Item> search(String text) {
+        List<Item> found = new ArrayList<>();
+        shards.gather(() -> itemRepository.findByNameOrDescriptionAndAvailable(text)).forEach(found::addAll);
+        return found;
+    }
+
+    @Override
+    public long[] searchIds(String text) {
+        return shards.gather(() -> itemRepository.findIdsByNameOrDescriptionAndAvailable(text)).stream()
+            .flatMap(List::stream)
+            .mapToLong(Long::longValue)
+            .sorted()
+            .toArray();
+    }
+
+    @Override
+    public void update(Item item) {
+    }
+
+    @Override
+    public void remove(Collection<Long> itemIds) {
+    }
+}
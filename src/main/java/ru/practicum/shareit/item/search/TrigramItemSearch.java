@@ -0,0 +1,266 @@
+package ru.practicum.shareit.item.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted trigram index over the lowercased name and description of available items.
+ * A query of three or more characters is answered from the rarest of its trigrams: every candidate from that
+ * posting list is verified with a plain substring check, which keeps the semantics of the JPQL {@code LIKE}
+ * search. An edit moves the item between the posting lists of the trigrams it lost and gained, and an item that
+ * becomes unavailable or is deleted leaves all of its lists.
+ * <p>
+ * Queries of one or two characters have no trigram and go to {@link JpqlItemSearch}. Such a query matches a large
+ * share of the catalogue, so its cost is dominated by the result rather than the lookup, while unigram and bigram
+ * posting lists would more than double the memory of the index.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class TrigramItemSearch implements ItemSearch {
+    private static final char FIELD_SEPARATOR = '\u0000';
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final Shards shards;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> documents = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final JpqlItemSearch shortQueries;
+
+    public TrigramItemSearch(ItemRepository itemRepository, Shards shards) {
+        this.itemRepository = itemRepository;
+        this.shards = shards;
+        this.shortQueries = new JpqlItemSearch(itemRepository, shards);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            shards.forEach(() -> {
+                for (ItemDocument document : itemRepository.findAllAvailableDocuments()) {
+                    index(document.id(), toDocument(document.name(), document.description()));
+                }
+            });
+            log.info("Item search index built for {} items with {} trigrams", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> search(String text) {
+        if (text.length() < GRAM) {
+            return shortQueries.search(text);
+        }
+        long[] ids = searchIds(text);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return shards.gatherIds(Arrays.stream(ids).boxed().toList(), itemRepository::findAllWithUserByIdIn);
+    }
+
+    @Override
+    public void update(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                index(item.getId(), toDocument(item.getName(), item.getDescription()));
+            } else {
+                unindex(item.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::unindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] searchIds(String text) {
+        if (text.length() < GRAM) {
+            return shortQueries.searchIds(text);
+        }
+        String query = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            Postings rarest = null;
+            for (long trigram : trigrams(query)) {
+                Postings candidate = postings.get(trigram);
+                if (candidate == null) {
+                    return new long[0];
+                }
+                if (rarest == null || candidate.size < rarest.size) {
+                    rarest = candidate;
+                }
+            }
+            return verify(rarest, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] verify(Postings candidates, String query) {
+        long[] matches = new long[candidates.size];
+        int found = 0;
+        for (long id : candidates.ids) {
+            if (id == Postings.EMPTY) {
+                continue;
+            }
+            String document = documents.get(id);
+            if (document != null && document.contains(query)) {
+                matches[found++] = id;
+            }
+        }
+        Arrays.sort(matches, 0, found);
+        return Arrays.copyOf(matches, found);
+    }
+
+    private void index(Long itemId, String document) {
+        String previous = documents.put(itemId, document);
+        if (document.equals(previous)) {
+            return;
+        }
+        Set<Long> known = previous == null ? Set.of() : trigrams(previous);
+        Set<Long> current = trigrams(document);
+        for (long trigram : current) {
+            if (!known.contains(trigram)) {
+                postings.computeIfAbsent(trigram, x -> new Postings()).add(itemId);
+            }
+        }
+        for (long trigram : known) {
+            if (!current.contains(trigram)) {
+                removePosting(trigram, itemId);
+            }
+        }
+    }
+
+    private void unindex(Long itemId) {
+        String previous = documents.remove(itemId);
+        if (previous != null) {
+            for (long trigram : trigrams(previous)) {
+                removePosting(trigram, itemId);
+            }
+        }
+    }
+
+    private void removePosting(long trigram, long itemId) {
+        Postings list = postings.get(trigram);
+        if (list != null && list.remove(itemId) && list.size == 0) {
+            postings.remove(trigram);
+        }
+    }
+
+    private static String toDocument(String name, String description) {
+        return (name + FIELD_SEPARATOR + description).toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            char third = text.charAt(i + 2);
+            if (first == FIELD_SEPARATOR || second == FIELD_SEPARATOR || third == FIELD_SEPARATOR) {
+                continue;
+            }
+            trigrams.add(((long) first << 32) | ((long) second << 16) | third);
+        }
+        return trigrams;
+    }
+
+    /**
+     * Open-addressing set of item ids with linear probing, so an edit or removal touches a few slots of a list
+     * however common its trigram is. Iteration order does not matter, since the verification sorts the matches.
+     */
+    private static final class Postings {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] ids = emptySlots(4);
+        private int size;
+
+        private void add(long id) {
+            if ((size + 1) * 4 > ids.length * 3) {
+                long[] old = ids;
+                ids = emptySlots(old.length * 2);
+                for (long x : old) {
+                    if (x != EMPTY) {
+                        ids[slot(x)] = x;
+                    }
+                }
+            }
+            int slot = slot(id);
+            if (ids[slot] == EMPTY) {
+                ids[slot] = id;
+                size++;
+            }
+        }
+
+        /**
+         * Removes {@code id} and shifts the entries of its probe run back, so later lookups need no tombstones.
+         */
+        private boolean remove(long id) {
+            int hole = slot(id);
+            if (ids[hole] == EMPTY) {
+                return false;
+            }
+            int mask = ids.length - 1;
+            for (int next = (hole + 1) & mask; ids[next] != EMPTY; next = (next + 1) & mask) {
+                int home = home(ids[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    ids[hole] = ids[next];
+                    hole = next;
+                }
+            }
+            ids[hole] = EMPTY;
+            size--;
+            return true;
+        }
+
+        private int slot(long id) {
+            int mask = ids.length - 1;
+            int slot = home(id);
+            while (ids[slot] != EMPTY && ids[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int home(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (ids.length - 1);
+        }
+
+        private static long[] emptySlots(int length) {
+            long[] slots = new long[length];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintains {@code ITEM.LAST_BOOKING_ID} and {@code ITEM.NEXT_BOOKING_ID}: the latest waiting or approved booking
+ * that has ended and the earliest one that has not started. The booking service refreshes the pointers of an item
+ * when one of its bookings is created, approved or rejected, and {@link #advance()} refreshes the items whose
+ * bookings started or ended since its previous run, so the pointers lag the clock by at most
+ * {@code shareit.item.booking-pointers.advance-millis}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingPointers {
+    private static final int REFRESH_BATCH = 500;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final Shards shards;
+    private LocalDateTime advancedTo;
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        int rebuilt = shards.sum(() -> {
+            Set<Long> itemIds = new TreeSet<>();
+            for (BookingInterval interval : bookingRepository.findAllIntervalsByStatusIn(
+                BookingIntervalIndex.OCCUPYING)) {
+                itemIds.add(interval.itemId());
+            }
+            refresh(itemIds, now);
+            return itemIds.size();
+        });
+        advancedTo = now;
+        log.info("Booking pointers rebuilt for {} items", rebuilt);
+    }
+
+    public void refresh(Long itemId) {
+        refresh(List.of(itemId), LocalDateTime.now());
+    }
+
+    public void refresh(Collection<Long> itemIds) {
+        refresh(itemIds, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item.booking-pointers.advance-millis:60000}")
+    public void advance() {
+        advance(LocalDateTime.now());
+    }
+
+    /**
+     * Refreshes the items with a booking that started in {@code (advancedTo, now]} or ended in
+     * {@code [advancedTo, now)}, the only ones whose pointers the passing time has made stale, shard by shard.
+     */
+    public synchronized void advance(LocalDateTime now) {
+        if (!now.isAfter(advancedTo)) {
+            return;
+        }
+        int advanced = shards.sum(() -> {
+            Set<Long> itemIds = new TreeSet<>();
+            itemIds.addAll(bookingRepository.findItemIdsByStatusInAndStartBetween(BookingIntervalIndex.OCCUPYING,
+                advancedTo, now));
+            itemIds.addAll(bookingRepository.findItemIdsByStatusInAndEndBetween(BookingIntervalIndex.OCCUPYING,
+                advancedTo, now));
+            refresh(itemIds, now);
+            return itemIds.size();
+        });
+        advancedTo = now;
+        if (advanced > 0) {
+            log.debug("Booking pointers advanced for {} items", advanced);
+        }
+    }
+
+    private void refresh(Collection<Long> itemIds, LocalDateTime now) {
+        List<Long> batch = new ArrayList<>(Math.min(itemIds.size(), REFRESH_BATCH));
+        for (Long itemId : itemIds) {
+            batch.add(itemId);
+            if (batch.size() == REFRESH_BATCH) {
+                itemRepository.refreshBookingPointers(batch, BookingIntervalIndex.OCCUPYING, now);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            itemRepository.refreshBookingPointers(batch, BookingIntervalIndex.OCCUPYING, now);
+        }
+    }
+}
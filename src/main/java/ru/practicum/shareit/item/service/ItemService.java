@@ -1,10 +1,19 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemField;
 import ru.practicum.shareit.item.dto.OutCommentDto;
+import ru.practicum.shareit.item.dto.TimeWindowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.projection.Projection;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface ItemService {
     ItemDto addItem(ItemDto itemDto, Long userId);
@@ -13,9 +22,31 @@ public interface ItemService {
 
     ItemDto getItem(Long itemId, Long userId);
 
+    /**
+     * {@link #getItem} with the entity tag of the view, derived from the item row it was rendered from.
+     */
+    Tagged<ItemDto> getTaggedItem(Long itemId, Long userId);
+
+    /**
+     * The entity tag {@link #getTaggedItem} would return, read in one row without the comments, or {@code null}
+     * when the item does not exist.
+     */
+    String getItemTag(Long itemId, Long userId);
+
     List<ItemDto> getItems(Long userId);
 
     List<ItemDto> findItems(String text);
 
+    /**
+     * {@link #getItems} narrowed to the fields of {@code projection}, which are all the query reads.
+     */
+    List<Map<String, Object>> getItems(Long userId, Projection<Item, ItemField> projection);
+
+    List<Map<String, Object>> findItems(String text, Projection<Item, ItemField> projection);
+
+    List<TimeWindowDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    List<ItemCommentDto> getComments(Long itemId, CommentCursor cursor, Integer size);
+
     OutCommentDto addComment(InCommentDto inCommentDto, Long itemId, Long userId);
 }
@@ -3,17 +3,32 @@ package ru.practicum.shareit.item.service;
 import io.micrometer.common.util.StringUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.ReplicaRead;
+import ru.practicum.shareit.datasource.ShardKey;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exception.AccessException;
+import ru.practicum.shareit.exception.DataOperationException;
 import ru.practicum.shareit.item.dto.InCommentDto;
 import ru.practicum.shareit.item.dto.InCommentMapper;
+import ru.practicum.shareit.item.dto.CommentCursor;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.dto.ItemViewState;
+import ru.practicum.shareit.item.dto.ItemWithBookings;
 import ru.practicum.shareit.item.dto.OutCommentDto;
 import ru.practicum.shareit.item.dto.OutCommentMapper;
+import ru.practicum.shareit.item.dto.TimeWindowDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.exception.EntityNotFoundException;
@@ -21,16 +36,25 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.exception.MissingValueException;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.storage.StripedLocks;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int EMBEDDED_COMMENTS = 10;
+    private static final int OWNER_STRIPES = 64;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
@@ -38,63 +62,181 @@ public class ItemServiceImpl implements ItemService {
     private final InCommentMapper inCommentMapper;
     private final OutCommentMapper outCommentMapper;
     private final CommentRepository commentRepository;
+    private final ItemSearch itemSearch;
+    private final Shards shards;
+    /**
+     * Serializes the writes of an owner's items from the save through the search index update, so that the index
+     * ends with the text of the last committed edit. An item is only written by its owner, who never changes.
+     */
+    private final StripedLocks ownerLocks = new StripedLocks(OWNER_STRIPES);
 
-    public ItemDto addItem(ItemDto itemDto, Long userId) {
+    public ItemDto addItem(ItemDto itemDto, @ShardKey(ShardKey.Kind.OWNER) Long userId) {
         if (itemDto.getName() == null ||
             itemDto.getDescription() == null ||
             itemDto.getAvailable() == null) {
             throw new MissingValueException();
         }
-        userRepository.findById(userId).orElseThrow(EntityNotFoundException::new);
         itemDto.setId(null);
-        Item created =
-            itemRepository.save(itemMapper.toEntity(itemDto, userId));
+        Item created;
+        ReentrantLock lock = ownerLocks.forId(userId);
+        lock.lock();
+        try {
+            created = itemRepository.save(itemMapper.toEntity(itemDto, userId));
+            itemSearch.update(created);
+        } finally {
+            lock.unlock();
+        }
         return itemMapper.toDto(created, created.getUser(), null, null, null);
     }
 
-    public ItemDto editItem(ItemDto itemDto, Long userId, Long itemId) {
-        Item item = itemRepository.findByUserIdAndId(userId, itemId).orElseThrow(EntityNotFoundException::new);
-        itemDto.setId(itemId);
-        Item updated =
-            itemRepository.save(itemMapper.updateEntity(item, itemDto));
+    public ItemDto editItem(ItemDto itemDto, Long userId, @ShardKey(ShardKey.Kind.ID) Long itemId) {
+        Item updated;
+        ReentrantLock lock = ownerLocks.forId(userId);
+        lock.lock();
+        try {
+            Item item = itemRepository.findByUserIdAndId(userId, itemId).orElseThrow(EntityNotFoundException::new);
+            itemDto.setId(itemId);
+            updated = itemRepository.save(itemMapper.updateEntity(item, itemDto));
+            itemSearch.update(updated);
+        } finally {
+            lock.unlock();
+        }
         return itemMapper.toDto(updated, updated.getUser(), null, null, null);
     }
 
-    public ItemDto getItem(Long itemId, Long userId) {
-        Item found = itemRepository.findById(itemId).orElseThrow(EntityNotFoundException::new);
-        LocalDateTime now = LocalDateTime.now();
+    /**
+     * One row for the item, its owner, its comment count and its last/next bookings, which
+     * {@link ItemBookingPointers} keeps current, plus the newest comments. The bookings are only shown to the owner.
+     */
+    @ReplicaRead
+    public ItemDto getItem(@ShardKey(ShardKey.Kind.ID) Long itemId, Long userId) {
+        return getTaggedItem(itemId, userId).body();
+    }
+
+    @Override
+    @ReplicaRead
+    public Tagged<ItemDto> getTaggedItem(@ShardKey(ShardKey.Kind.ID) Long itemId, Long userId) {
+        ItemWithBookings found = itemRepository.findWithBookingsById(itemId).orElseThrow(EntityNotFoundException::new);
+        boolean owner = userId.equals(found.user().getId());
+        List<ItemCommentDto> comments = commentRepository.findAllByItemId(itemId, CommentCursor.FIRST.created(),
+            CommentCursor.FIRST.id(), Limit.of(EMBEDDED_COMMENTS));
+        return new Tagged<>(itemMapper.toDto(found.item(), found.user(), owner ? found.lastBooking() : null,
+            owner ? found.nextBooking() : null, comments), tag(ItemViewState.of(found), owner));
+    }
+
+    @Override
+    @ReplicaRead
+    public String getItemTag(@ShardKey(ShardKey.Kind.ID) Long itemId, Long userId) {
+        return itemRepository.findViewStateById(itemId)
+            .map(x -> tag(x, userId.equals(x.ownerId())))
+            .orElse(null);
+    }
 
-        Booking last = null;
-        Booking next = null;
-        if (userId.equals(found.getUser().getId())) {
-            last = bookingRepository.findFirstByItemIdAndEndBeforeOrderByEndDesc(itemId, now);
-            next = bookingRepository.findFirstByItemIdAndStartAfterOrderByStartAsc(itemId, now);
+    @ReplicaRead
+    public List<ItemDto> getItems(@ShardKey(ShardKey.Kind.OWNER) Long userId) {
+        List<ItemWithBookings> found = itemRepository.findAllWithBookingsByUserId(userId);
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> itemIds = found.stream().map(x -> x.item().getId()).toList();
+        Map<Long, List<ItemCommentDto>> comments = new HashMap<>();
+        for (ItemCommentDto comment : commentRepository.findNewestByItemIdIn(itemIds, EMBEDDED_COMMENTS)) {
+            comments.computeIfAbsent(comment.getItemId(), x -> new ArrayList<>()).add(comment);
         }
-        Set<String> comments = commentRepository.findCommentTextByItemId(itemId);
-        return itemMapper.toDto(found, found.getUser(), last, next, comments);
+        return found.stream()
+            .map(x -> itemMapper.toDto(x.item(), x.user(), x.lastBooking(), x.nextBooking(),
+                comments.getOrDefault(x.item().getId(), new ArrayList<>())))
+            .toList();
     }
 
-    public List<ItemDto> getItems(Long userId) {
-        List<Item> found = itemRepository.findAllByUserId(userId);
-        return found.stream().map(x -> itemMapper.toDto(x, x.getUser(), null, null, null)).toList();
+    @Override
+    @ReplicaRead
+    public List<Map<String, Object>> getItems(@ShardKey(ShardKey.Kind.OWNER) Long userId,
+                                              Projection<Item, ItemField> projection) {
+        return itemRepository.findProjectedByUserId(projection, userId);
     }
 
+    @Override
+    @ReplicaRead
+    public List<Map<String, Object>> findItems(String text, Projection<Item, ItemField> projection) {
+        if (StringUtils.isBlank(text)) {
+            return Collections.emptyList();
+        }
+        long[] found = itemSearch.searchIds(text);
+        if (found.length == 0) {
+            return Collections.emptyList();
+        }
+        return shards.gatherIds(Arrays.stream(found).boxed().toList(),
+            x -> itemRepository.findProjectedByIdIn(projection, x));
+    }
+
+    @Override
+    @ReplicaRead
+    public List<ItemCommentDto> getComments(@ShardKey(ShardKey.Kind.ID) Long itemId, CommentCursor cursor,
+                                            Integer size) {
+        List<ItemCommentDto> found = commentRepository.findAllByItemId(itemId, cursor.created(), cursor.id(),
+            Limit.of(size));
+        if (found.isEmpty() && !itemRepository.existsById(itemId)) {
+            throw new EntityNotFoundException();
+        }
+        return found;
+    }
+
+    @ReplicaRead
     public List<ItemDto> findItems(String text) {
         if (StringUtils.isBlank(text)) {
             return Collections.emptyList();
         }
-        List<Item> found = itemRepository.findByNameOrDescriptionAndAvailable(text);
+        List<Item> found = itemSearch.search(text);
         return found.stream().map(x -> itemMapper.toDto(x, x.getUser(), null, null, null)).toList();
     }
 
     @Override
-    public OutCommentDto addComment(InCommentDto inCommentDto, Long itemId, Long userId) {
+    @ReplicaRead
+    public List<TimeWindowDto> getAvailability(@ShardKey(ShardKey.Kind.ID) Long itemId, LocalDateTime from,
+                                               LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new DataOperationException("Availability range must start before it ends");
+        }
+        Item item = itemRepository.findById(itemId).orElseThrow(EntityNotFoundException::new);
+        if (!item.getAvailable()) {
+            return Collections.emptyList();
+        }
+        List<BookingInterval> booked = bookingRepository.findAllIntervalsByItemIdBetween(itemId,
+            BookingIntervalIndex.OCCUPYING, from, to);
+        List<TimeWindowDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookingInterval interval : booked) {
+            if (interval.start().isAfter(cursor)) {
+                free.add(new TimeWindowDto(cursor, interval.start()));
+            }
+            if (interval.end().isAfter(cursor)) {
+                cursor = interval.end();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new TimeWindowDto(cursor, to));
+        }
+        return free;
+    }
+
+    @Override
+    public OutCommentDto addComment(InCommentDto inCommentDto, @ShardKey(ShardKey.Kind.ID) Long itemId, Long userId) {
         User user = userRepository.findById(userId).orElseThrow(EntityNotFoundException::new);
         Item item = itemRepository.findById(itemId).orElseThrow(EntityNotFoundException::new);
-        if (!bookingRepository.existsByItemIdAndBookerIdAndEndIsLessThanEqual(itemId, userId, LocalDateTime.now())) {
+        if (!bookingRepository.existsByItemIdAndBookerIdAndEndIsLessThanEqual(itemId, userId, LocalDateTime.now()) &&
+            !bookingRepository.existsArchivedByItemIdAndBookerId(itemId, userId)) {
             throw new AccessException();
         }
         Comment comment = commentRepository.save(inCommentMapper.toEntity(inCommentDto, item, user));
+        itemRepository.refreshCommentCounts(List.of(itemId));
         return outCommentMapper.toDto(comment);
     }
+
+    /**
+     * Bookings are only shown to the owner, so the role is part of the tag.
+     */
+    private static String tag(ItemViewState state, boolean owner) {
+        return EntityTags.of(state, owner);
+    }
 }
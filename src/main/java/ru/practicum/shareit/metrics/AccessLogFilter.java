@@ -0,0 +1,66 @@
+package ru.practicum.shareit.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one structured line per request to the {@value #LOGGER} logger: method, endpoint pattern, status, sharer
+ * id, result size, latency and SQL statement count. A {@code shareit.access-log.sample-rate} share of the requests
+ * is logged, server errors always are. {@code logback-spring.xml} hands the logger to an asynchronous appender, so
+ * request threads only format the line and never wait for the output.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+    public static final String LOGGER = "ru.practicum.shareit.access";
+    public static final String RESULT_SIZE_ATTRIBUTE = AccessLogFilter.class.getName() + ".resultSize";
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(LOGGER);
+    private static final int SERVER_ERROR = 500;
+
+    private final double sampleRate;
+
+    public AccessLogFilter(@Value("${shareit.access-log.sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            int status = failed ? SERVER_ERROR : response.getStatus();
+            if (ACCESS_LOG.isInfoEnabled() && (status >= SERVER_ERROR || sampled())) {
+                Object endpoint = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                ACCESS_LOG.info("method={} endpoint={} status={} user={} size={} latencyMicros={} statements={}",
+                    request.getMethod(), endpoint == null ? request.getRequestURI() : endpoint, status,
+                    request.getHeader(SharerPrincipal.HEADER), request.getAttribute(RESULT_SIZE_ATTRIBUTE),
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started),
+                    request.getAttribute(StatementCountFilter.REQUEST_ATTRIBUTE));
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
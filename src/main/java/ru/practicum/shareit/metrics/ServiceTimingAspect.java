@@ -0,0 +1,71 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.controller.State;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the service implementations as {@code shareit.service}, tagged with the service,
+ * the method, the booking {@link State} argument when there is one, and the outcome (exception simple name on
+ * failure). Timers are cached per tag combination, so a call costs two {@link System#nanoTime()} reads and a map
+ * lookup.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceTimingAspect {
+    public static final String METRIC = "shareit.service";
+    private static final String NO_STATE = "none";
+    private static final String SUCCESS = "success";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.practicum.shareit..service.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            TimerKey key = new TimerKey(joinPoint.getSignature().getDeclaringType(),
+                joinPoint.getSignature().getName(), state(joinPoint.getArgs()), outcome);
+            timers.computeIfAbsent(key, this::register).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(METRIC)
+            .description("Service method execution time")
+            .tag("service", key.service().getSimpleName())
+            .tag("method", key.method())
+            .tag("state", key.state())
+            .tag("outcome", key.outcome())
+            .register(meterRegistry);
+    }
+
+    private static String state(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof State state) {
+                return state.name();
+            }
+        }
+        return NO_STATE;
+    }
+
+    private record TimerKey(Class<?> service, String method, String state, String outcome) {
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements issued while serving a request, response serialization included, and stores the
+ * count in the {@link #REQUEST_ATTRIBUTE} request attribute and the number of inserts among them in
+ * {@link #INSERTS_ATTRIBUTE}. Requests over {@code shareit.sql.statement-budget} are logged as warnings.
+ */
+@Slf4j
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+    public static final String REQUEST_ATTRIBUTE = StatementCountFilter.class.getName() + ".count";
+    public static final String INSERTS_ATTRIBUTE = StatementCountFilter.class.getName() + ".inserts";
+
+    private final int budget;
+
+    public StatementCountFilter(@Value("${shareit.sql.statement-budget:10}") int budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        StatementCounter.Scope scope = StatementCounter.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            scope.close();
+            request.setAttribute(REQUEST_ATTRIBUTE, scope.count());
+            request.setAttribute(INSERTS_ATTRIBUTE, scope.inserts());
+            if (scope.count() > budget) {
+                log.warn("{} {} issued {} SQL statements, budget is {}", request.getMethod(), request.getRequestURI(),
+                    scope.count(), budget);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a {@link Scope} is open. Scopes nest:
+ * a statement counts towards every open scope of the thread, which also counts the inserts among them separately. A
+ * scope opened with {@link #record()} also keeps the SQL text of its statements. Work handed to other threads counts
+ * towards the scopes of the thread that handed it over when it is wrapped with {@link #propagate}, so a scope may be
+ * updated by several threads at once.
+ */
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    public static Scope open() {
+        return push(new Scope(CURRENT.get(), null));
+    }
+
+    public static Scope record() {
+        return push(new Scope(CURRENT.get(), Collections.synchronizedList(new ArrayList<>())));
+    }
+
+    /**
+     * Wraps {@code task} to count its statements towards the scopes open on the calling thread, wherever it runs.
+     */
+    public static Runnable propagate(Runnable task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    private static Scope push(Scope scope) {
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        boolean insert = sql.regionMatches(true, 0, "insert", 0, "insert".length());
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.count.incrementAndGet();
+            if (insert) {
+                scope.inserts.incrementAndGet();
+            }
+            if (scope.statements != null) {
+                scope.statements.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final List<String> statements;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger inserts = new AtomicInteger();
+
+        private Scope(Scope parent, List<String> statements) {
+            this.parent = parent;
+            this.statements = statements;
+        }
+
+        public int count() {
+            return count.get();
+        }
+
+        /**
+         * The insert statements among {@link #count()}. The rows of a JDBC batch share one prepared insert, which
+         * counts once.
+         */
+        public int inserts() {
+            return inserts.get();
+        }
+
+        /**
+         * The statements prepared so far, empty unless the scope was opened with {@link #record()}.
+         */
+        public List<String> statements() {
+            if (statements == null) {
+                return List.of();
+            }
+            synchronized (statements) {
+                return List.copyOf(statements);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (parent == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(parent);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class StatementCounterConfig {
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    /**
+     * Counts the statements of the shard queries {@link ru.practicum.shareit.datasource.Shards} runs in parallel
+     * towards the request that started them.
+     */
+    @Bean
+    public TaskDecorator statementCountPropagation() {
+        return StatementCounter::propagate;
+    }
+}
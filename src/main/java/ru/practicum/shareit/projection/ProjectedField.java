@@ -0,0 +1,22 @@
+package ru.practicum.shareit.projection;
+
+import java.util.List;
+
+/**
+ * A field {@code fields=} can select: its JSON name, the HQL expressions it is read from and how its value is
+ * built from them, or from an already loaded {@code T} in the in-memory repositories.
+ */
+public interface ProjectedField<T> {
+    String fieldName();
+
+    List<String> expressions();
+
+    /**
+     * The value of the field read from {@code row}, where its expressions start at {@code from}.
+     */
+    default Object value(Object[] row, int from) {
+        return row[from];
+    }
+
+    Object value(T source);
+}
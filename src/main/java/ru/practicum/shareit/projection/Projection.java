@@ -0,0 +1,95 @@
+package ru.practicum.shareit.projection;
+
+import ru.practicum.shareit.exception.DataOperationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a sparse fieldset, {@code fields=id,name} on a listing, in their declaration order. The queries
+ * select {@link #select()} instead of the whole representation and render each row with {@link #toMap}.
+ */
+public final class Projection<T, F extends Enum<F> & ProjectedField<T>> {
+    private static final String SEPARATOR = ",";
+
+    private final Set<F> fields;
+    private final int width;
+
+    private Projection(Set<F> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.width = fields.stream().mapToInt(x -> x.expressions().size()).sum();
+    }
+
+    @SafeVarargs
+    public static <T, F extends Enum<F> & ProjectedField<T>> Projection<T, F> of(F first, F... rest) {
+        return new Projection<>(EnumSet.of(first, rest));
+    }
+
+    /**
+     * Parses a comma-separated list of field names, failing with the names {@code type} offers when one is unknown.
+     */
+    public static <T, F extends Enum<F> & ProjectedField<T>> Projection<T, F> parse(String fields, Class<F> type) {
+        Set<F> selected = EnumSet.noneOf(type);
+        for (String name : fields.split(SEPARATOR)) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            selected.add(Arrays.stream(type.getEnumConstants())
+                .filter(x -> x.fieldName().equals(trimmed))
+                .findFirst()
+                .orElseThrow(() -> new DataOperationException("Unknown field " + trimmed + ", expected one of " +
+                    Arrays.stream(type.getEnumConstants()).map(ProjectedField::fieldName)
+                        .collect(Collectors.joining(SEPARATOR)))));
+        }
+        if (selected.isEmpty()) {
+            throw new DataOperationException("No fields selected");
+        }
+        return new Projection<>(selected);
+    }
+
+    public Set<F> fields() {
+        return fields;
+    }
+
+    public boolean has(F field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * The HQL select list, {@link #width()} expressions long.
+     */
+    public String select() {
+        return fields.stream().flatMap(x -> x.expressions().stream()).collect(Collectors.joining(", "));
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Renders a row of a query that selected {@link #select()} at {@code from}.
+     */
+    public Map<String, Object> toMap(Object[] row, int from) {
+        Map<String, Object> rendered = new LinkedHashMap<>();
+        int column = from;
+        for (F field : fields) {
+            rendered.put(field.fieldName(), field.value(row, column));
+            column += field.expressions().size();
+        }
+        return rendered;
+    }
+
+    public Map<String, Object> toMap(T source) {
+        Map<String, Object> rendered = new LinkedHashMap<>();
+        for (F field : fields) {
+            rendered.put(field.fieldName(), field.value(source));
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.storage;
+
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * The part of {@code JpaRepository} the services use, implemented by both the JPA repositories and the {@code memory}
+ * profile {@link StubRepository}. Query by example, sorting and paging are left out so that no profile exposes an
+ * operation it cannot serve.
+ */
+@NoRepositoryBean
+public interface EntityRepository<T> extends ListCrudRepository<T, Long> {
+    T getReferenceById(Long id);
+
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+}
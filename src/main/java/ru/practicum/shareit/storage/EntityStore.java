@@ -0,0 +1,25 @@
+package ru.practicum.shareit.storage;
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Id-keyed storage of detached entities behind a {@link StubRepository}. Implementations must allow lock-free
+ * reads concurrent with writes; writes of the same id are serialized by the repository.
+ */
+public interface EntityStore<T> {
+    T get(long id);
+
+    /**
+     * Stores {@code entity} under {@code id} and returns the entity it replaced, if any.
+     */
+    T put(long id, T entity);
+
+    T remove(long id);
+
+    LongStream ids();
+
+    Stream<T> values();
+
+    int size();
+}
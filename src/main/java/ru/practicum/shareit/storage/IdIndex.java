@@ -0,0 +1,30 @@
+package ru.practicum.shareit.storage;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent multimap from a foreign key to the ids of the entities referencing it.
+ */
+public class IdIndex {
+    private final ConcurrentHashMap<Long, Set<Long>> index = new ConcurrentHashMap<>();
+
+    public void add(Long key, Long id) {
+        index.compute(key, (x, ids) -> {
+            Set<Long> target = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            target.add(id);
+            return target;
+        });
+    }
+
+    public void remove(Long key, Long id) {
+        index.computeIfPresent(key, (x, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    public Set<Long> get(Long key) {
+        return index.getOrDefault(key, Set.of());
+    }
+}
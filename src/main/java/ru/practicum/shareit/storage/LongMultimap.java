@@ -0,0 +1,186 @@
+package ru.practicum.shareit.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multimap of primitive longs: open-addressing segments of {@code long} keys pointing at growable {@code long[]}
+ * value arrays, without boxing or per-entry nodes. Every segment has its own read-write lock, so writes to keys of
+ * different segments do not contend. A key whose values are all removed keeps its slot until {@link #removeAll}.
+ */
+public class LongMultimap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long[] NONE = new long[0];
+
+    private final Segment[] segments;
+
+    public LongMultimap(int segments) {
+        int size = Integer.highestOneBit(Math.max(1, segments - 1)) << 1;
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            this.segments[i] = new Segment();
+        }
+    }
+
+    public void add(long key, long value) {
+        Segment segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            segment.add(key, value);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key, long value) {
+        Segment segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            segment.remove(key, value);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the key and returns its values.
+     */
+    public long[] removeAll(long key) {
+        Segment segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            long[] values = segment.get(key);
+            segment.clear(key);
+            return values;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the values of the key, in insertion order unless values were removed.
+     */
+    public long[] get(long key) {
+        Segment segment = segment(key);
+        segment.lock.readLock().lock();
+        try {
+            return segment.get(key);
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    private Segment segment(long key) {
+        return segments[mix(key) & (segments.length - 1)];
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32);
+    }
+
+    private static final class Segment {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long[] keys = emptyKeys(16);
+        private long[][] values = new long[16][];
+        private int[] sizes = new int[16];
+        private int used;
+
+        void add(long key, long value) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                if ((used + 1) * 4 > keys.length * 3) {
+                    resize();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                values[slot] = new long[2];
+                used++;
+            }
+            long[] target = values[slot];
+            if (sizes[slot] == target.length) {
+                target = Arrays.copyOf(target, target.length * 2);
+                values[slot] = target;
+            }
+            target[sizes[slot]++] = value;
+        }
+
+        void remove(long key, long value) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            long[] target = values[slot];
+            int size = sizes[slot];
+            for (int i = size - 1; i >= 0; i--) {
+                if (target[i] == value) {
+                    System.arraycopy(target, i + 1, target, i, size - i - 1);
+                    sizes[slot] = size - 1;
+                    return;
+                }
+            }
+        }
+
+        long[] get(long key) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY || sizes[slot] == 0) {
+                return NONE;
+            }
+            return Arrays.copyOf(values[slot], sizes[slot]);
+        }
+
+        void clear(long key) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            long[] oldKeys = keys;
+            long[][] oldValues = values;
+            int[] oldSizes = sizes;
+            oldKeys[slot] = EMPTY;
+            keys = emptyKeys(oldKeys.length);
+            values = new long[oldKeys.length][];
+            sizes = new int[oldKeys.length];
+            used = 0;
+            reinsert(oldKeys, oldValues, oldSizes);
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[][] oldValues = values;
+            int[] oldSizes = sizes;
+            keys = emptyKeys(oldKeys.length * 2);
+            values = new long[oldKeys.length * 2][];
+            sizes = new int[oldKeys.length * 2];
+            used = 0;
+            reinsert(oldKeys, oldValues, oldSizes);
+        }
+
+        private void reinsert(long[] oldKeys, long[][] oldValues, int[] oldSizes) {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    sizes[slot] = oldSizes[i];
+                    used++;
+                }
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0xC2B2AE3D27D4EB4FL) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long[] emptyKeys(int length) {
+            long[] keys = new long[length];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
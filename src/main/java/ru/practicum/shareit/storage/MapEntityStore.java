@@ -0,0 +1,39 @@
+package ru.practicum.shareit.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class MapEntityStore<T> implements EntityStore<T> {
+    private final ConcurrentHashMap<Long, T> storage = new ConcurrentHashMap<>();
+
+    @Override
+    public T get(long id) {
+        return storage.get(id);
+    }
+
+    @Override
+    public T put(long id, T entity) {
+        return storage.put(id, entity);
+    }
+
+    @Override
+    public T remove(long id) {
+        return storage.remove(id);
+    }
+
+    @Override
+    public LongStream ids() {
+        return storage.keySet().stream().mapToLong(Long::longValue);
+    }
+
+    @Override
+    public Stream<T> values() {
+        return storage.values().stream();
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+}
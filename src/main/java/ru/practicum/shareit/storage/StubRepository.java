@@ -0,0 +1,244 @@
+package ru.practicum.shareit.storage;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectRetrievalFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base of the {@code memory} profile repositories: an {@link EntityRepository} over an {@link EntityStore} of detached
+ * entity copies, a concurrent map unless the subclass supplies a more compact store.
+ * <p>
+ * Ids come from an {@link AtomicLong}. Writes of an id hold its stripe of {@link StripedLocks} while the entity and
+ * the secondary indexes of the subclass are updated, so an index never disagrees with the stored entity for longer
+ * than that critical section; reads take no locks. Stored copies keep only the ids of referenced entities, which are
+ * resolved on every read the way a fetch join would. An entity whose reference has been deleted is not returned, and
+ * deletions cascade through {@link #onDelete} listeners like the {@code ON DELETE CASCADE} foreign keys of the schema.
+ */
+public abstract class StubRepository<T> implements EntityRepository<T> {
+    private static final int STRIPES = 64;
+
+    private final Class<T> type;
+    private final EntityStore<T> storage;
+    private final AtomicLong generatedId = new AtomicLong();
+    private final StripedLocks locks = new StripedLocks(STRIPES);
+    private final List<Consumer<T>> deleteListeners = new CopyOnWriteArrayList<>();
+
+    protected StubRepository(Class<T> type) {
+        this(type, new MapEntityStore<>());
+    }
+
+    protected StubRepository(Class<T> type, EntityStore<T> storage) {
+        this.type = type;
+        this.storage = storage;
+    }
+
+    protected abstract Long getId(T entity);
+
+    protected abstract void setId(T entity, Long id);
+
+    /**
+     * Copy to store, with references reduced to their ids.
+     */
+    protected abstract T detach(T entity);
+
+    /**
+     * Copy to return, with references resolved, or {@code null} when a referenced entity no longer exists.
+     */
+    protected abstract T attach(T stored);
+
+    /**
+     * Checks and reserves unique keys before {@code entity} replaces {@code previous}, under the lock of its id.
+     */
+    protected void reserve(T previous, T entity) {
+    }
+
+    /**
+     * Updates secondary indexes after {@code entity} replaced {@code previous}, under the lock of its id.
+     */
+    protected void index(T previous, T entity) {
+    }
+
+    /**
+     * Removes a deleted entity from secondary indexes, under the lock of its id.
+     */
+    protected void unindex(T entity) {
+    }
+
+    public void onDelete(Consumer<T> listener) {
+        deleteListeners.add(listener);
+    }
+
+    protected T stored(Long id) {
+        return storage.get(id);
+    }
+
+    protected Stream<T> stored() {
+        return storage.values();
+    }
+
+    protected EntityStore<T> storage() {
+        return storage;
+    }
+
+    protected List<T> resolve(Stream<Long> ids) {
+        return ids.map(this::stored)
+            .filter(Objects::nonNull)
+            .map(this::attach)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    /**
+     * Applies {@code change} to a copy of the stored entity and stores it, provided {@code condition} holds for the
+     * stored one, under the lock of its id. Returns {@code false} when the entity is missing or the condition fails.
+     */
+    protected boolean updateIf(Long id, Predicate<T> condition, Consumer<T> change) {
+        ReentrantLock lock = locks.forId(id);
+        lock.lock();
+        try {
+            T previous = storage.get(id);
+            if (previous == null || !condition.test(previous)) {
+                return false;
+            }
+            T updated = detach(previous);
+            change.accept(updated);
+            storage.put(id, updated);
+            index(previous, updated);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends T> S save(S entity) {
+        Long id = getId(entity);
+        if (id == null) {
+            id = generatedId.incrementAndGet();
+        } else {
+            generatedId.accumulateAndGet(id, Math::max);
+        }
+        T detached = detach(entity);
+        setId(detached, id);
+        T attached;
+        ReentrantLock lock = locks.forId(id);
+        lock.lock();
+        try {
+            T previous = storage.get(id);
+            reserve(previous, detached);
+            storage.put(id, detached);
+            index(previous, detached);
+            // checked once the entity is indexed: a referenced entity deleted before the check is seen missing, one
+            // deleted after it finds this entity through the indexes and cascades to it
+            attached = attach(detached);
+            if (attached == null) {
+                storage.remove(id);
+                unindex(detached);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (attached == null) {
+            deleteListeners.forEach(x -> x.accept(detached));
+            throw new DataIntegrityViolationException(type.getSimpleName() + " " + id +
+                " references a missing entity");
+        }
+        return (S) attached;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return Optional.ofNullable(storage.get(id)).map(this::attach);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<T> findAll() {
+        return resolve(storage.ids().sorted().boxed());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        return resolve(StreamSupport.stream(ids.spliterator(), false));
+    }
+
+    @Override
+    public long count() {
+        return storage.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        T removed;
+        ReentrantLock lock = locks.forId(id);
+        lock.lock();
+        try {
+            removed = storage.remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed != null) {
+            deleteListeners.forEach(x -> x.accept(removed));
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(getId(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        List<Long> copy = new ArrayList<>();
+        ids.forEach(copy::add);
+        copy.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAllById(storage.ids().boxed().toList());
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new ObjectRetrievalFailureException(type, id));
+    }
+}
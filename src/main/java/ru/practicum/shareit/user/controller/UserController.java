@@ -4,11 +4,12 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -19,7 +20,6 @@ import java.util.List;
  */
 @RestController
 @RequestMapping(path = "/users")
-@Slf4j
 @RequiredArgsConstructor
 @Validated
 public class UserController {
@@ -28,7 +28,6 @@ public class UserController {
     @PostMapping
     public ResponseEntity<UserDto> addUser(@RequestBody @Valid @NotNull UserDto userDto) {
         UserDto created = userService.addUser(userDto);
-        log.info("userDto created: " + created.toString());
         return new ResponseEntity<>(created, HttpStatus.OK);
     }
 
@@ -36,28 +35,28 @@ public class UserController {
     public ResponseEntity editUser(@RequestBody @Valid @NotNull UserDto userDto,
                                    @PathVariable @Min(1) Long userId) {
         UserDto updated = userService.editUser(userDto, userId);
-        log.info("userDto updated: " + updated.toString());
         return new ResponseEntity(updated, HttpStatus.OK);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<UserDto> getUser(@PathVariable @Min(1) Long userId) {
+    public ResponseEntity<UserDto> getUser(@PathVariable @Min(1) Long userId, WebRequest request) {
         UserDto found = userService.getUser(userId);
-        log.info("userDto found: " + found.toString());
-        return new ResponseEntity<>(found, HttpStatus.OK);
+        String tag = EntityTags.of(found);
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(tag).body(found);
     }
 
     @GetMapping
     public ResponseEntity<List<UserDto>> getUsers() {
         List<UserDto> found = userService.getUsers();
-        log.info("userDto found: " + found.toString());
         return new ResponseEntity<>(found, HttpStatus.OK);
     }
 
     @DeleteMapping("/{userId}")
     public ResponseEntity<UserDto> deleteUser(@PathVariable @Min(1) Long userId) {
         UserDto deleted = userService.deleteUser(userId);
-        log.info("userDto deleted: " + deleted.toString());
         return new ResponseEntity<>(deleted, HttpStatus.OK);
     }
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.user.principal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class PrincipalWebConfig implements WebMvcConfigurer {
+    private final SharerPrincipalArgumentResolver sharerPrincipalArgumentResolver;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(sharerPrincipalArgumentResolver);
+    }
+}
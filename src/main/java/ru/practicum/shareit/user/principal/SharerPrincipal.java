@@ -0,0 +1,10 @@
+package ru.practicum.shareit.user.principal;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * The user on whose behalf a request is made, taken from the {@code X-Sharer-User-Id} header.
+ */
+public record SharerPrincipal(@Min(1) Long id) {
+    public static final String HEADER = "X-Sharer-User-Id";
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.user.principal;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+
+import java.util.Set;
+
+/**
+ * Resolves {@link SharerPrincipal} handler arguments from the {@code X-Sharer-User-Id} header once per request.
+ */
+@Component
+@RequiredArgsConstructor
+public class SharerPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+    private static final String PRINCIPAL_ATTRIBUTE = SharerPrincipal.class.getName();
+    private static final String VERIFIED_ATTRIBUTE = PRINCIPAL_ATTRIBUTE + ".verified";
+
+    private final UserExistenceCache userExistenceCache;
+    private final Validator validator;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return SharerPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory)
+        throws MissingRequestHeaderException {
+        SharerPrincipal principal =
+            (SharerPrincipal) webRequest.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal == null) {
+            principal = new SharerPrincipal(parseHeader(parameter, webRequest));
+            Set<ConstraintViolation<SharerPrincipal>> violations = validator.validate(principal);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
+            webRequest.setAttribute(PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        SharerUser options = parameter.getParameterAnnotation(SharerUser.class);
+        if ((options == null || options.verified())
+            && webRequest.getAttribute(VERIFIED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) == null) {
+            if (!userExistenceCache.exists(principal.id())) {
+                throw new EntityNotFoundException("User " + principal.id() + " not found");
+            }
+            webRequest.setAttribute(VERIFIED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        return principal;
+    }
+
+    public static SharerPrincipal current(HttpServletRequest request) {
+        return (SharerPrincipal) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+    }
+
+    private Long parseHeader(MethodParameter parameter, NativeWebRequest webRequest)
+        throws MissingRequestHeaderException {
+        String value = webRequest.getHeader(SharerPrincipal.HEADER);
+        if (value == null) {
+            throw new MissingRequestHeaderException(SharerPrincipal.HEADER, parameter);
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new MethodArgumentTypeMismatchException(value, Long.class, SharerPrincipal.HEADER, parameter, e);
+        }
+    }
+}
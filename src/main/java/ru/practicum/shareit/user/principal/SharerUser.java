@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user.principal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tunes how a {@link SharerPrincipal} handler argument is resolved. Without it the user must exist.
+ */
+@Documented
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SharerUser {
+    boolean verified() default true;
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.user.principal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of user existence checks. Missing users are cached too, for a shorter time, so that
+ * repeated requests with an unknown id do not reach the database either.
+ */
+@Component
+public class UserExistenceCache {
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<Long, Entry> entries;
+    private long generation;
+
+    public UserExistenceCache(UserRepository userRepository,
+                              @Value("${shareit.principal.cache.max-size:10000}") int maxSize,
+                              @Value("${shareit.principal.cache.ttl:PT10M}") Duration ttl,
+                              @Value("${shareit.principal.cache.negative-ttl:PT5S}") Duration negativeTtl) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean exists(Long userId) {
+        long now = System.nanoTime();
+        long observed;
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAt - now > 0) {
+                return entry.exists;
+            }
+            observed = generation;
+        }
+        boolean exists = userRepository.existsById(userId);
+        synchronized (this) {
+            if (observed == generation) {
+                entries.put(userId, new Entry(exists, now + (exists ? ttlNanos : negativeTtlNanos)));
+            }
+        }
+        return exists;
+    }
+
+    public synchronized void invalidate(Long userId) {
+        generation++;
+        entries.remove(userId);
+    }
+
+    private record Entry(boolean exists, long expiresAt) {
+    }
+}
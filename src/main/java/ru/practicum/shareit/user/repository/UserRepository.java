@@ -1,11 +1,23 @@
 package ru.practicum.shareit.user.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.storage.EntityRepository;
 import ru.practicum.shareit.user.model.User;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends EntityRepository<User> {
 
     User findByEmail(String email);
+
+    /**
+     * Writes a copy of a user created or edited on the home shard, keeping its id, which {@code save} would draw
+     * anew from the sequence.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "merge into USERS (ID, NAME, EMAIL) key (ID) values (:id, :name, :email)", nativeQuery = true)
+    int copy(Long id, String name, String email);
 }
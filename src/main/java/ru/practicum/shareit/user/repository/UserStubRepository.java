@@ -1,56 +1,77 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.storage.StubRepository;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
-public class UserStubRepository {
-    private final Map<String, User> userStorage = new HashMap<>();
-    private final Map<Long, String> userEmailIndex = new HashMap<>();
-    private long generatedId = 1;
+@Profile("memory")
+public class UserStubRepository extends StubRepository<User> implements UserRepository {
+    private final ConcurrentHashMap<String, Long> emailIndex = new ConcurrentHashMap<>();
 
-    public boolean containsEmail(String email) {
-        return userStorage.containsKey(email);
+    public UserStubRepository() {
+        super(User.class);
     }
 
-    public boolean containsUser(Long userId) {
-        return userEmailIndex.containsKey(userId);
-    }
-
-    public User save(User user) {
-        String userEmail = user.getEmail();
-        Long userId = user.getId();
+    @Override
+    public User findByEmail(String email) {
+        Long userId = emailIndex.get(email);
         if (userId == null) {
-            user.setId(generatedId++);
-        } else {
-            userStorage.remove(userEmailIndex.get(userId));
+            return null;
         }
-        userStorage.put(userEmail, user);
-        userEmailIndex.put(user.getId(), userEmail);
-        return user;
+        return findById(userId).filter(x -> x.getEmail().equals(email)).orElse(null);
     }
 
-    public User getUser(Long userId) {
-        return userStorage.get(userEmailIndex.get(userId));
+    @Override
+    public int copy(Long id, String name, String email) {
+        save(User.builder().id(id).name(name).email(email).build());
+        return 1;
     }
 
-    public List<User> getUsers() {
-        return new ArrayList<>(userStorage.values());
+    @Override
+    protected Long getId(User user) {
+        return user.getId();
     }
 
-    public User deleteUser(Long userId) {
-        String email = userEmailIndex.get(userId);
-        if (email == null) {
-            return null;
+    @Override
+    protected void setId(User user, Long id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected User detach(User user) {
+        return User.builder().id(user.getId()).name(user.getName()).email(user.getEmail()).build();
+    }
+
+    @Override
+    protected User attach(User user) {
+        return detach(user);
+    }
+
+    @Override
+    protected void reserve(User previous, User user) {
+        if (user.getEmail() == null) {
+            throw new DataIntegrityViolationException("User email must not be null");
+        }
+        Long owner = emailIndex.putIfAbsent(user.getEmail(), user.getId());
+        if (owner != null && !owner.equals(user.getId())) {
+            throw new DataIntegrityViolationException("Email " + user.getEmail() + " is already in use");
+        }
+    }
+
+    @Override
+    protected void index(User previous, User user) {
+        if (previous != null && !previous.getEmail().equals(user.getEmail())) {
+            emailIndex.remove(previous.getEmail(), user.getId());
         }
-        User deleted = userStorage.get(email);
-        userStorage.remove(email);
-        userEmailIndex.remove(userId);
-        return deleted;
+    }
+
+    @Override
+    protected void unindex(User user) {
+        emailIndex.remove(user.getEmail(), user.getId());
     }
 }
@@ -3,7 +3,17 @@ package ru.practicum.shareit.user.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.ReadYourWrites;
+import ru.practicum.shareit.datasource.ReplicaRead;
+import ru.practicum.shareit.datasource.Shards;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -11,14 +21,25 @@ import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.DataOperationException;
 import ru.practicum.shareit.exception.MissingValueException;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.principal.UserExistenceCache;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingPointers itemBookingPointers;
+    private final ItemSearch itemSearch;
     private final UserMapper userMapper;
+    private final UserExistenceCache userExistenceCache;
+    private final ReadYourWrites readYourWrites;
+    private final Shards shards;
 
     @Override
     public UserDto addUser(UserDto userDto) {
@@ -32,6 +53,10 @@ public class UserServiceImpl implements UserService {
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException(e.getMessage());
         }
+        copyToOtherShards(created);
+        userExistenceCache.invalidate(created.getId());
+        // the request that registers a user carries no user header, so the routing could not mark it
+        readYourWrites.wrote(created.getId());
         return userMapper.toDto(created);
     }
 
@@ -44,17 +69,30 @@ public class UserServiceImpl implements UserService {
                 throw new ConflictException();
             }
         }
+        String name = user.getName();
         User updated = userRepository.save(userMapper.updateEntity(userDto, user));
+        copyToOtherShards(updated);
+        if (!Objects.equals(name, updated.getName())) {
+            // the items embed the comments with their authors' names, bumping their revisions changes their tags
+            shards.forEach(() -> {
+                List<Long> commented = commentRepository.findItemIdsByAuthorId(userId);
+                if (!commented.isEmpty()) {
+                    itemRepository.refreshCommentCounts(commented);
+                }
+            });
+        }
         return userMapper.toDto(updated);
     }
 
     @Override
+    @ReplicaRead
     public UserDto getUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(EntityNotFoundException::new);
         return userMapper.toDto(user);
     }
 
     @Override
+    @ReplicaRead
     public List<UserDto> getUsers() {
         return userRepository.findAll().stream().map(userMapper::toDto).toList();
     }
@@ -62,7 +100,40 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto deleteUser(Long userId) {
         User deleted = userRepository.findById(userId).orElseThrow(DataOperationException::new);
-        userRepository.deleteById(userId);
+        // the delete cascades to the user's items, comments and bookings and to the bookings of their items: the
+        // items commented on are recounted, the slots the bookings held are released, the items the user booked
+        // get their last/next booking pointers refreshed and the user's items leave the search
+        shards.forEach(() -> {
+            List<Long> owned = itemRepository.findIdsByOwnerId(userId);
+            List<Long> commented = commentRepository.findItemIdsByAuthorId(userId);
+            List<BookingInterval> booked =
+                bookingRepository.findAllIntervalsByBookerIdAndStatusIn(userId, BookingIntervalIndex.OCCUPYING);
+            List<BookingInterval> lent =
+                bookingRepository.findAllIntervalsByOwnerIdAndStatusIn(userId, BookingIntervalIndex.OCCUPYING);
+            userRepository.deleteById(userId);
+            if (!commented.isEmpty()) {
+                itemRepository.refreshCommentCounts(commented);
+            }
+            for (BookingInterval interval : booked) {
+                bookingIntervalIndex.release(interval.itemId(), interval.bookingId());
+            }
+            if (!booked.isEmpty()) {
+                itemBookingPointers.refresh(booked.stream().map(BookingInterval::itemId).distinct().toList());
+            }
+            for (BookingInterval interval : lent) {
+                bookingIntervalIndex.release(interval.itemId(), interval.bookingId());
+            }
+            itemSearch.remove(owned);
+        });
+        userExistenceCache.invalidate(userId);
         return userMapper.toDto(deleted);
     }
+
+    /**
+     * The users live on the home shard and are copied to the others, whose items, bookings and comments reference
+     * them. A failed copy is not rolled back on the home shard; editing the user again repairs it.
+     */
+    private void copyToOtherShards(User user) {
+        shards.forEachOther(() -> userRepository.copy(user.getId(), user.getName(), user.getEmail()));
+    }
 }
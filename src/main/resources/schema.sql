@@ -1,4 +1,5 @@
 DROP TABLE IF EXISTS public.COMMENT;
+DROP TABLE IF EXISTS public.BOOKING_ARCHIVE;
 DROP TABLE IF EXISTS public.BOOKING;
 DROP TABLE IF EXISTS public.ITEM;
 DROP TABLE IF EXISTS public.USERS;
@@ -8,7 +9,7 @@ CREATE SEQUENCE IF NOT EXISTS USER_ID_SEQ START WITH 1;
 DROP SEQUENCE IF EXISTS ITEM_ID_SEQ;
 CREATE SEQUENCE IF NOT EXISTS ITEM_ID_SEQ START WITH 1;
 DROP SEQUENCE IF EXISTS BOOKING_ID_SEQ;
-CREATE SEQUENCE IF NOT EXISTS BOOKING_ID_SEQ START WITH 1;
+CREATE SEQUENCE IF NOT EXISTS BOOKING_ID_SEQ START WITH 1 INCREMENT BY 50;
 DROP SEQUENCE IF EXISTS COMMENT_ID_SEQ;
 CREATE SEQUENCE IF NOT EXISTS COMMENT_ID_SEQ START WITH 1;
 
@@ -28,6 +29,8 @@ CREATE TABLE IF NOT EXISTS public.ITEM
     OWNER_ID        bigint  NOT NULL,
     LAST_BOOKING_ID bigint,
     NEXT_BOOKING_ID bigint,
+    COMMENT_COUNT   integer NOT NULL DEFAULT 0,
+    REVISION        bigint  NOT NULL DEFAULT 0,
     AVAILABLE       boolean NOT NULL,
     CONSTRAINT ITEM_pkey PRIMARY KEY (ID),
     CONSTRAINT ITEM_USERS_FK FOREIGN KEY (OWNER_ID)
@@ -43,6 +46,7 @@ CREATE TABLE IF NOT EXISTS public.booking
     item_id    bigint                NOT NULL,
     booker_id  bigint                NOT NULL,
     status     character varying(64) NOT NULL,
+    version    bigint                NOT NULL DEFAULT 0,
     PRIMARY KEY (id),
     CONSTRAINT item_fk FOREIGN KEY (item_id)
     REFERENCES public.item (id)
@@ -53,6 +57,28 @@ CREATE TABLE IF NOT EXISTS public.booking
                          ON UPDATE CASCADE
                          ON DELETE CASCADE
     );
+-- Bookings that ended before the archive horizon, moved here by BookingArchiver in id-preserving chunks. Rows are
+-- appended in END_DATE order; on PostgreSQL the table can be declared PARTITION BY RANGE (end_date) with no change
+-- to the queries.
+CREATE TABLE IF NOT EXISTS public.BOOKING_ARCHIVE
+(
+    id         bigint                NOT NULL,
+    start_date timestamp without time zone,
+    end_date   timestamp without time zone,
+    item_id    bigint                NOT NULL,
+    booker_id  bigint                NOT NULL,
+    status     character varying(64) NOT NULL,
+    version    bigint                NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT archive_item_fk FOREIGN KEY (item_id)
+    REFERENCES public.item (id)
+                         ON UPDATE CASCADE
+                         ON DELETE CASCADE,
+    CONSTRAINT archive_user_fk FOREIGN KEY (booker_id)
+    REFERENCES public.users (id)
+                         ON UPDATE CASCADE
+                         ON DELETE CASCADE
+    );
 CREATE TABLE IF NOT EXISTS public.comment
 (
     id        bigint NOT NULL,
@@ -69,4 +95,21 @@ CREATE TABLE IF NOT EXISTS public.comment
     REFERENCES public.users (id)
                         ON UPDATE CASCADE
                         ON DELETE CASCADE
-    );
\ No newline at end of file
+    );
+-- One index per repository query, QueryPlanTest checks that the plans use them. H2 also indexes every foreign key
+-- column on its own and picks that index for plain lookups of the leading column; PostgreSQL does not, so the
+-- composite indexes below are the ones backing ITEM.OWNER_ID, COMMENT.ITEM_ID and COMMENT.AUTHOR_ID there.
+CREATE INDEX IF NOT EXISTS ITEM_OWNER_IDX ON public.ITEM (OWNER_ID, ID);
+CREATE INDEX IF NOT EXISTS ITEM_LAST_BOOKING_IDX ON public.ITEM (LAST_BOOKING_ID);
+CREATE INDEX IF NOT EXISTS BOOKING_BOOKER_START_IDX ON public.booking (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_BOOKER_STATUS_START_IDX ON public.booking (booker_id, status, start_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_ITEM_START_IDX ON public.booking (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_ITEM_END_IDX ON public.booking (item_id, end_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_START_IDX ON public.booking (start_date);
+CREATE INDEX IF NOT EXISTS BOOKING_END_IDX ON public.booking (end_date);
+CREATE INDEX IF NOT EXISTS BOOKING_ITEM_BOOKER_END_IDX ON public.booking (item_id, booker_id, end_date);
+CREATE INDEX IF NOT EXISTS BOOKING_ARCHIVE_BOOKER_START_IDX ON public.BOOKING_ARCHIVE (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_ARCHIVE_ITEM_START_IDX ON public.BOOKING_ARCHIVE (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS BOOKING_ARCHIVE_ITEM_BOOKER_IDX ON public.BOOKING_ARCHIVE (item_id, booker_id);
+CREATE INDEX IF NOT EXISTS COMMENT_ITEM_CREATED_IDX ON public.comment (item_id, created, id);
+CREATE INDEX IF NOT EXISTS COMMENT_AUTHOR_IDX ON public.comment (author_id, item_id);
@@ -0,0 +1,286 @@
+package ru.practicum.shareit.booking.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.insertCount;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.maxStatementCount;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.statementCount;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class BookingControllerTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int BOOKINGS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingRepository bookingRepository;
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private LocalDateTime firstStart;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerId = addUser("owner" + System.nanoTime() + "@javabeans.com");
+        bookerId = addUser("booker" + System.nanoTime() + "@javabeans.com");
+        ItemDto itemDto = ItemDto.builder().name("bicycle").description("two wheels").available(true).build();
+        itemId = postJson("/items", ownerId, itemDto).get("id").asLong();
+        firstStart = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            InwardBookingDto bookingDto = InwardBookingDto.builder().itemId(itemId)
+                .start(firstStart.plusDays(i)).end(firstStart.plusDays(i).plusHours(1)).build();
+            postJson("/bookings", bookerId, bookingDto);
+        }
+    }
+
+    @Test
+    void getUserBookingsPagesThroughAllBookingsWithCursor() throws Exception {
+        assertPagesThrough("/bookings", bookerId);
+    }
+
+    @Test
+    void getOwnerBookingsPagesThroughAllBookingsWithCursor() throws Exception {
+        assertPagesThrough("/bookings/owner", ownerId);
+    }
+
+    @Test
+    void getUserBookingsWithoutSizeReturnsEverything() throws Exception {
+        MvcResult result = mockMvc.perform(get("/bookings").header(USER_ID_HEADER, bookerId))
+            .andExpect(status().isOk()).andReturn();
+        assertEquals(BOOKINGS, objectMapper.readTree(result.getResponse().getContentAsString()).size());
+        assertNull(result.getResponse().getHeader(NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getUserBookingsRejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/bookings").header(USER_ID_HEADER, bookerId).param("size", "2").param("cursor", "%%%"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addBookingRejectsOverlappingRequest() throws Exception {
+        InwardBookingDto overlapping = InwardBookingDto.builder().itemId(itemId)
+            .start(firstStart.plusMinutes(30)).end(firstStart.plusHours(2)).build();
+        mockMvc.perform(post("/bookings").contentType("application/json").header(USER_ID_HEADER, bookerId)
+                .content(objectMapper.writeValueAsString(overlapping)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addBookingAcceptsSlotFreedByRejection() throws Exception {
+        JsonNode waiting = objectMapper.readTree(mockMvc.perform(get("/bookings").header(USER_ID_HEADER, bookerId))
+            .andReturn().getResponse().getContentAsString()).get(BOOKINGS - 1);
+        mockMvc.perform(patch("/bookings/" + waiting.get("id").asLong()).header(USER_ID_HEADER, ownerId)
+                .param("approved", "false"))
+            .andExpect(status().isOk());
+        InwardBookingDto sameSlot = InwardBookingDto.builder().itemId(itemId)
+            .start(firstStart).end(firstStart.plusHours(1)).build();
+        mockMvc.perform(post("/bookings").contentType("application/json").header(USER_ID_HEADER, bookerId)
+                .content(objectMapper.writeValueAsString(sameSlot)))
+            .andExpect(status().isCreated());
+    }
+
+    @Test
+    void approveBookingIsSingleConditionalUpdate() throws Exception {
+        long bookingId = firstBookingId();
+        mockMvc.perform(patch("/bookings/" + bookingId).header(USER_ID_HEADER, bookerId).param("approved", "true"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/bookings/" + Long.MAX_VALUE).header(USER_ID_HEADER, ownerId)
+                .param("approved", "true"))
+            .andExpect(status().isNotFound());
+        // the update and the read of the response
+        mockMvc.perform(patch("/bookings/" + bookingId).header(USER_ID_HEADER, ownerId).param("approved", "true"))
+            .andExpect(status().isOk()).andExpect(statementCount(2));
+        mockMvc.perform(patch("/bookings/" + bookingId).header(USER_ID_HEADER, ownerId).param("approved", "true"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/bookings/" + bookingId).header(USER_ID_HEADER, ownerId).param("approved", "false"))
+            .andExpect(status().isOk());
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertEquals(Status.REJECTED, booking.getStatus());
+        assertEquals(2L, booking.getVersion());
+    }
+
+    @Test
+    void concurrentApprovalsUpdateBookingOnce() throws Exception {
+        long bookingId = firstBookingId();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(patch("/bookings/" + bookingId).header(USER_ID_HEADER, ownerId)
+                        .param("approved", "true")).andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+        }
+        int approved = 0;
+        for (Future<Integer> status : statuses) {
+            int code = status.get();
+            assertTrue(code == 200 || code == 400, "unexpected status " + code);
+            approved += code == 200 ? 1 : 0;
+        }
+
+        assertEquals(1, approved);
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertEquals(Status.APPROVED, booking.getStatus());
+        assertEquals(1L, booking.getVersion());
+    }
+
+    @Test
+    void bookingReadsIssueOneStatementPerTableWithFlatItemAndBooker() throws Exception {
+        JsonNode page = null;
+        for (String path : List.of("/bookings", "/bookings/owner")) {
+            long userId = path.endsWith("owner") ? ownerId : bookerId;
+            // the recent bookings and the archived ones
+            page = objectMapper.readTree(mockMvc.perform(get(path).header(USER_ID_HEADER, userId))
+                .andExpect(status().isOk()).andExpect(statementCount(2))
+                .andReturn().getResponse().getContentAsString());
+        }
+        JsonNode booking = page.get(0);
+        mockMvc.perform(get("/bookings/" + booking.get("id").asLong()).header(USER_ID_HEADER, bookerId))
+            .andExpect(status().isOk()).andExpect(statementCount(1));
+
+        assertEquals(Set.of("id", "name"), fieldNames(booking.get("item")));
+        assertEquals(Set.of("id", "name"), fieldNames(booking.get("booker")));
+        assertEquals(itemId, booking.get("item").get("id").asLong());
+        assertEquals(bookerId, booking.get("booker").get("id").asLong());
+    }
+
+    @Test
+    void addBookingsReturnsPerEntryResults() throws Exception {
+        LocalDateTime free = firstStart.plusDays(BOOKINGS);
+        List<InwardBookingDto> batch = List.of(
+            InwardBookingDto.builder().itemId(itemId).start(free).end(free.plusHours(1)).build(),
+            InwardBookingDto.builder().itemId(itemId).start(firstStart).end(firstStart.plusHours(1)).build(),
+            InwardBookingDto.builder().itemId(itemId).start(free.plusMinutes(30)).end(free.plusHours(2)).build(),
+            InwardBookingDto.builder().itemId(-1L).start(free).end(free.plusHours(1)).build(),
+            InwardBookingDto.builder().itemId(itemId).start(free.plusDays(1)).end(free).build(),
+            InwardBookingDto.builder().itemId(itemId).start(free.plusHours(1)).end(free.plusHours(2)).build());
+        MvcResult result = mockMvc.perform(post("/bookings/batch").contentType("application/json")
+                .header(USER_ID_HEADER, bookerId).content(objectMapper.writeValueAsString(batch)))
+            .andExpect(status().isOk()).andReturn();
+        JsonNode results = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            boolean created = i == 0 || i == batch.size() - 1;
+            assertEquals(created, results.get(i).get("error").isNull(), results.get(i).toString());
+            assertEquals(created, !results.get(i).get("booking").isNull(), results.get(i).toString());
+        }
+        MvcResult all = mockMvc.perform(get("/bookings").header(USER_ID_HEADER, bookerId))
+            .andExpect(status().isOk()).andReturn();
+        assertEquals(BOOKINGS + 2, objectMapper.readTree(all.getResponse().getContentAsString()).size());
+    }
+
+    @Test
+    void addBookingsInsertsInJdbcBatches() throws Exception {
+        int count = 120;
+        LocalDateTime free = firstStart.plusDays(BOOKINGS);
+        List<InwardBookingDto> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(InwardBookingDto.builder().itemId(itemId).start(free.plusHours(i)).end(free.plusHours(i + 1))
+                .build());
+        }
+        MvcResult result = mockMvc.perform(post("/bookings/batch").contentType("application/json")
+                .header(USER_ID_HEADER, bookerId).content(objectMapper.writeValueAsString(batch)))
+            .andExpect(status().isOk()).andExpect(maxStatementCount(10)).andExpect(insertCount(1)).andReturn();
+        JsonNode results = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals(count, results.size());
+        for (JsonNode entry : results) {
+            assertTrue(entry.get("error").isNull(), entry.toString());
+            assertFalse(entry.get("booking").isNull(), entry.toString());
+        }
+    }
+
+    private long firstBookingId() throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get("/bookings").header(USER_ID_HEADER, bookerId))
+            .andReturn().getResponse().getContentAsString()).get(BOOKINGS - 1).get("id").asLong();
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private void assertPagesThrough(String path, long userId) throws Exception {
+        List<LocalDateTime> starts = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get(path).header(USER_ID_HEADER, userId).param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            for (JsonNode booking : objectMapper.readTree(result.getResponse().getContentAsString())) {
+                starts.add(LocalDateTime.parse(booking.get("start").asText()));
+            }
+            cursor = result.getResponse().getHeader(NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        assertEquals(BOOKINGS, starts.size());
+        for (int i = 1; i < starts.size(); i++) {
+            assertTrue(starts.get(i).isBefore(starts.get(i - 1)));
+        }
+    }
+
+    private long addUser(String email) throws Exception {
+        UserDto userDto = UserDto.builder().name("user").email(email).build();
+        MvcResult result = mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private JsonNode postJson(String path, long userId, Object body) throws Exception {
+        MvcResult result = mockMvc.perform(post(path).contentType("application/json")
+                .header(USER_ID_HEADER, userId).content(objectMapper.writeValueAsString(body)))
+            .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
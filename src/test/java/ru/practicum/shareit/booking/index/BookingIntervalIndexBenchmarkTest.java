@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the interval index with the equivalent SQL overlap query for a single heavily booked item.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=BookingIntervalIndexBenchmarkTest [-Dbenchmark.bookings=N]}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookingIntervalIndexBenchmarkTest {
+    private static final String OVERLAP_QUERY = "select count(*) from booking where item_id = ? " +
+        "and status in ('WAITING', 'APPROVED') and start_date < ? and end_date > ?";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int PROBES = 2_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Test
+    void compareIndexWithSqlOverlapQuery() {
+        int bookings = Integer.getInteger("benchmark.bookings", 10_000);
+        long itemId = seed(bookings);
+        bookingIntervalIndex.rebuild();
+
+        Random random = new Random(7);
+        List<LocalDateTime[]> probes = new ArrayList<>();
+        for (int i = 0; i < PROBES; i++) {
+            LocalDateTime start = EPOCH.plusHours(random.nextInt(bookings * 3));
+            probes.add(new LocalDateTime[]{start, start.plusHours(1 + random.nextInt(3))});
+        }
+
+        int sqlHits = 0;
+        long sqlStarted = System.nanoTime();
+        for (LocalDateTime[] probe : probes) {
+            Integer count = jdbcTemplate.queryForObject(OVERLAP_QUERY, Integer.class, itemId,
+                Timestamp.valueOf(probe[1]), Timestamp.valueOf(probe[0]));
+            sqlHits += count != null && count > 0 ? 1 : 0;
+        }
+        long sqlNanos = System.nanoTime() - sqlStarted;
+
+        int indexHits = 0;
+        long indexStarted = System.nanoTime();
+        for (LocalDateTime[] probe : probes) {
+            indexHits += bookingIntervalIndex.overlaps(itemId, probe[0], probe[1]) ? 1 : 0;
+        }
+        long indexNanos = System.nanoTime() - indexStarted;
+
+        System.out.printf("bookings per item: %d, probes: %d%n", bookings, PROBES);
+        System.out.printf("sql overlap query: %,d ns/op%n", sqlNanos / PROBES);
+        System.out.printf("interval index:    %,d ns/op%n", indexNanos / PROBES);
+        assertEquals(sqlHits, indexHits);
+    }
+
+    private long seed(int bookings) {
+        jdbcTemplate.update("insert into users (name, email) values ('owner', ?)", "owner" + System.nanoTime() + "@bench");
+        jdbcTemplate.update("insert into users (name, email) values ('booker', ?)", "booker" + System.nanoTime() + "@bench");
+        Long ownerId = jdbcTemplate.queryForObject("select min(id) from users where name = 'owner'", Long.class);
+        Long bookerId = jdbcTemplate.queryForObject("select min(id) from users where name = 'booker'", Long.class);
+        jdbcTemplate.update("insert into item (name, description, owner_id, available) values ('drill', 'drill', ?, true)",
+            ownerId);
+        Long itemId = jdbcTemplate.queryForObject("select max(id) from item", Long.class);
+        List<Object[]> rows = new ArrayList<>(bookings);
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = EPOCH.plusHours(i * 3L);
+            rows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(2)), itemId, bookerId,
+                i % 5 == 0 ? "REJECTED" : "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("insert into booking (start_date, end_date, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?)", rows);
+        return itemId;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void overlapsTreatsIntervalsAsHalfOpen() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(1, at(10), at(20));
+
+        assertTrue(tree.overlaps(at(15), at(25)));
+        assertTrue(tree.overlaps(at(5), at(11)));
+        assertTrue(tree.overlaps(at(12), at(13)));
+        assertFalse(tree.overlaps(at(20), at(30)));
+        assertFalse(tree.overlaps(at(0), at(10)));
+    }
+
+    @Test
+    void overlapsMatchesBruteForceAfterRandomInsertsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> live = new ArrayList<>();
+        for (long id = 0; id < 2_000; id++) {
+            long start = random.nextInt(10_000);
+            long end = start + 1 + random.nextInt(50);
+            tree.insert(id, at(start), at(end));
+            live.add(new long[]{id, start, end});
+            if (random.nextInt(3) == 0) {
+                long[] removed = live.remove(random.nextInt(live.size()));
+                tree.remove(removed[0], at(removed[1]));
+            }
+        }
+        assertEquals(live.size(), tree.size());
+        for (int probe = 0; probe < 5_000; probe++) {
+            long start = random.nextInt(10_100);
+            long end = start + 1 + random.nextInt(20);
+            boolean expected = live.stream().anyMatch(x -> x[1] < end && x[2] > start);
+            assertEquals(expected, tree.overlaps(at(start), at(end)), "probe [" + start + ", " + end + ")");
+        }
+    }
+
+    private static LocalDateTime at(long minutes) {
+        return EPOCH.plusMinutes(minutes);
+    }
+}
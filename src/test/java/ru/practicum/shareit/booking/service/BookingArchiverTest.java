@@ -0,0 +1,150 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "shareit.booking.archive.chunk-size=1")
+@ActiveProfiles("test")
+@DirtiesContext
+class BookingArchiverTest {
+    @Autowired
+    private BookingArchiver bookingArchiver;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    private LocalDateTime now;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        ownerId = addUser("owner");
+        bookerId = addUser("booker");
+        itemId = addItem("tent");
+    }
+
+    @Test
+    void archivedBookingsStayInPastListingsAndLookups() {
+        OutwardBookingDto oldest = book(itemId, bookerId, now.minusDays(200), true);
+        OutwardBookingDto waiting = book(itemId, bookerId, now.minusDays(150), null);
+        OutwardBookingDto rejected = book(itemId, bookerId, now.minusDays(100), false);
+        OutwardBookingDto recent = book(itemId, bookerId, now.minusDays(3), true);
+
+        assertEquals(2, bookingArchiver.archive(now.minusDays(30)));
+
+        assertFalse(bookingRepository.existsById(oldest.getId()));
+        assertFalse(bookingRepository.existsById(rejected.getId()));
+        assertTrue(bookingRepository.existsById(waiting.getId()));
+        List<Long> expected = List.of(recent.getId(), rejected.getId(), waiting.getId(), oldest.getId());
+        assertEquals(expected, ids(bookingService.getUserBookings(bookerId, State.PAST, BookingCursor.FIRST, null)));
+        assertEquals(expected, ids(bookingService.getOwnerBookings(ownerId, State.PAST, BookingCursor.FIRST, null)));
+        List<OutwardBookingDto> first = bookingService.getUserBookings(bookerId, State.PAST, BookingCursor.FIRST, 2);
+        assertEquals(expected.subList(0, 2), ids(first));
+        assertEquals(expected.subList(2, 4), ids(bookingService.getUserBookings(bookerId, State.PAST,
+            BookingCursor.after(first.get(1)), 2)));
+        assertEquals(oldest.getId(), bookingService.getBooking(oldest.getId(), ownerId).getId());
+        assertThrows(NotFoundException.class, () -> bookingService.approveBooking(oldest.getId(), ownerId, false));
+    }
+
+    @Test
+    void archivedBookingsStayInAllAndRejectedListings() {
+        OutwardBookingDto oldest = book(itemId, bookerId, now.minusDays(200), true);
+        OutwardBookingDto rejected = book(itemId, bookerId, now.minusDays(100), false);
+        OutwardBookingDto recent = book(itemId, bookerId, now.minusDays(3), true);
+        OutwardBookingDto future = book(itemId, bookerId, now.plusDays(3), null);
+
+        assertEquals(2, bookingArchiver.archive(now.minusDays(30)));
+
+        List<Long> all = List.of(future.getId(), recent.getId(), rejected.getId(), oldest.getId());
+        assertEquals(all, ids(bookingService.getUserBookings(bookerId, State.ALL, BookingCursor.FIRST, null)));
+        assertEquals(all, ids(bookingService.getOwnerBookings(ownerId, State.ALL, BookingCursor.FIRST, null)));
+        assertEquals(List.of(rejected.getId()),
+            ids(bookingService.getUserBookings(bookerId, State.REJECTED, BookingCursor.FIRST, null)));
+        assertEquals(List.of(rejected.getId()),
+            ids(bookingService.getOwnerBookings(ownerId, State.REJECTED, BookingCursor.FIRST, null)));
+        Projection<OutwardBookingDto, BookingField> projection = Projection.of(BookingField.STATUS);
+        assertEquals(all, rowIds(bookingService.getUserBookings(bookerId, State.ALL, BookingCursor.FIRST, null,
+            projection)));
+        assertEquals(List.of(rejected.getId()), rowIds(bookingService.getOwnerBookings(ownerId, State.REJECTED,
+            BookingCursor.FIRST, null, projection)));
+    }
+
+    @Test
+    void archivedBookingStillAllowsComment() {
+        Long reviewerId = addUser("reviewer");
+        book(itemId, reviewerId, now.minusDays(300), true);
+        book(itemId, bookerId, now.minusDays(3), true);
+
+        assertEquals(1, bookingArchiver.archive(now.minusDays(30)));
+
+        assertEquals("fine tent", itemService.addComment(InCommentDto.builder().text("fine tent").build(), itemId,
+            reviewerId).getText());
+    }
+
+    @Test
+    void lastBookingOfItemIsNotArchived() {
+        Long lampId = addItem("lamp");
+        OutwardBookingDto old = book(lampId, bookerId, now.minusDays(200), true);
+
+        assertEquals(0, bookingArchiver.archive(now.minusDays(30)));
+
+        assertEquals(old.getId(), itemService.getItem(lampId, ownerId).getLastBooking().getId());
+    }
+
+    private OutwardBookingDto book(Long itemId, Long bookerId, LocalDateTime start, Boolean approved) {
+        OutwardBookingDto booking = bookingService.addBooking(InwardBookingDto.builder().itemId(itemId).start(start)
+            .end(start.plusDays(1)).build(), bookerId);
+        return approved == null ? booking : bookingService.approveBooking(booking.getId(), ownerId, approved);
+    }
+
+    private static List<Long> ids(List<OutwardBookingDto> bookings) {
+        return bookings.stream().map(OutwardBookingDto::getId).toList();
+    }
+
+    private static List<Long> rowIds(List<BookingRow> rows) {
+        return rows.stream().map(BookingRow::id).toList();
+    }
+
+    private Long addItem(String name) {
+        return itemService.addItem(ItemDto.builder().name(name).description(name).available(true).build(), ownerId)
+            .getId();
+    }
+
+    private Long addUser(String name) {
+        return userService.addUser(UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com")
+            .build()).getId();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares one-by-one booking creation with the batch path.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=BookingBatchBenchmarkTest [-Dbenchmark.bookings=N]}.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookingBatchBenchmarkTest {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2040, 1, 1, 0, 0);
+    private static final int ITEMS = 20;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void compareSingleAndBatchCreation() {
+        int bookings = Integer.getInteger("benchmark.bookings", 1_000);
+        Long ownerId = addUser("owner");
+        Long bookerId = addUser("booker");
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds.add(itemService.addItem(ItemDto.builder().name("item " + i).description("bench").available(true)
+                .build(), ownerId).getId());
+        }
+
+        long singleNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        int offset = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<InwardBookingDto> single = requests(itemIds, bookings, offset);
+            offset += bookings;
+            long started = System.nanoTime();
+            for (InwardBookingDto request : single) {
+                bookingService.addBooking(request, bookerId);
+            }
+            singleNanos = Math.min(singleNanos, System.nanoTime() - started);
+
+            List<InwardBookingDto> batch = requests(itemIds, bookings, offset);
+            offset += bookings;
+            started = System.nanoTime();
+            List<BookingBatchResultDto> results = bookingService.addBookings(batch, bookerId);
+            batchNanos = Math.min(batchNanos, System.nanoTime() - started);
+            assertTrue(results.stream().allMatch(x -> x.getError() == null));
+        }
+        System.out.printf("bookings: %d, best of %d rounds%n", bookings, ROUNDS);
+        System.out.printf("one by one: %,8d ms (%,.0f bookings/s)%n", singleNanos / 1_000_000,
+            bookings * 1e9 / singleNanos);
+        System.out.printf("batch:      %,8d ms (%,.0f bookings/s)%n", batchNanos / 1_000_000,
+            bookings * 1e9 / batchNanos);
+    }
+
+    private static List<InwardBookingDto> requests(List<Long> itemIds, int bookings, int offset) {
+        List<InwardBookingDto> requests = new ArrayList<>(bookings);
+        for (int i = offset; i < offset + bookings; i++) {
+            LocalDateTime start = EPOCH.plusHours(i / itemIds.size());
+            requests.add(InwardBookingDto.builder().itemId(itemIds.get(i % itemIds.size())).start(start)
+                .end(start.plusHours(1)).build());
+        }
+        return requests;
+    }
+
+    private Long addUser(String name) {
+        return userService.addUser(UserDto.builder().name(name).email(name + System.nanoTime() + "@bench")
+            .build()).getId();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shareit-primary;DB_CLOSE_DELAY=-1",
+    "shareit.datasource.replica-urls=jdbc:h2:mem:shareit-replica;DB_CLOSE_DELAY=-1",
+    "shareit.datasource.read-your-writes=PT1H"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ReplicaRoutingTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        Map<Object, DataSource> resolved = replicaRoutingDataSource.getResolvedDataSources();
+        primary = new JdbcTemplate(resolved.get(ReplicaRoutingDataSource.PRIMARY));
+        replica = new JdbcTemplate(resolved.get(ReplicaRoutingDataSource.replicaKey(0)));
+    }
+
+    @Test
+    void writerReadsPrimaryWhileOthersReadReplicaUntilItCatchesUp() throws Exception {
+        long ownerId = addUser("owner");
+        // registered long ago: no recent write keeps its reads on the primary
+        long readerId = ownerId + 1_000_000;
+        primary.update("insert into users (id, name, email) values (?, 'reader', ?)", readerId,
+            "reader" + System.nanoTime());
+        ItemDto itemDto = ItemDto.builder().name("canoe").description("two paddles").available(true).build();
+        String created = mockMvc.perform(post("/items").header(SharerPrincipal.HEADER, ownerId)
+                .contentType("application/json").content(objectMapper.writeValueAsString(itemDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long itemId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId))
+            .andExpect(status().isOk()).andExpect(jsonPath("$.name").value("canoe"));
+        mockMvc.perform(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, readerId))
+            .andExpect(status().isNotFound());
+
+        replicate("users", ownerId);
+        replicate("item", itemId);
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, readerId))
+            .andExpect(status().isOk()).andExpect(jsonPath("$.name").value("canoe"));
+    }
+
+    @Test
+    void stickinessExpiresAfterWindow() {
+        ReadYourWrites expired = new ReadYourWrites(Duration.ZERO);
+        ReadYourWrites sticky = new ReadYourWrites(Duration.ofHours(1));
+
+        expired.wrote(1L);
+        sticky.wrote(1L);
+
+        assertFalse(expired.isSticky(1L));
+        assertTrue(sticky.isSticky(1L));
+        assertFalse(sticky.isSticky(2L));
+        assertFalse(sticky.isSticky(null));
+    }
+
+    private void replicate(String table, long id) {
+        Map<String, Object> row = primary.queryForMap("select * from " + table + " where id = ?", id);
+        String columns = String.join(", ", row.keySet());
+        String values = String.join(", ", row.keySet().stream().map(x -> "?").toList());
+        replica.update("insert into " + table + " (" + columns + ") values (" + values + ")",
+            new ArrayList<>(row.values()).toArray());
+    }
+
+    private long addUser(String name) throws Exception {
+        UserDto userDto = UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com").build();
+        String created = mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).get("id").asLong();
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.metrics.StatementCounter;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "shareit.datasource.shard-urls=" +
+    "jdbc:h2:mem:shareit-shard0;DB_CLOSE_DELAY=-1," +
+    "jdbc:h2:mem:shareit-shard1;DB_CLOSE_DELAY=-1," +
+    "jdbc:h2:mem:shareit-shard2;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@DirtiesContext
+class ShardingTest {
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private Shards shards;
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    void ownersItemsAndTheirBookingsShareAShardWhileBookerListingsAndSearchGatherAll() {
+        assertEquals(SHARDS, shards.count());
+        Long bookerId = addUser("booker");
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Long ownerId = addUser("owner");
+            Long itemId = itemService.addItem(ItemDto.builder().name("lantern " + i).description("oil")
+                .available(true).build(), ownerId).getId();
+            assertEquals(shards.ofOwner(ownerId), shards.ofId(itemId));
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertEquals(shard == shards.ofId(itemId) ? 1 : 0, count(shard, "item", itemId));
+            }
+            itemIds.add(itemId);
+        }
+        userService.editUser(UserDto.builder().name("renamed").build(), bookerId);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(SHARDS + 1, jdbcTemplate(shard).queryForObject("select count(*) from users", Integer.class));
+            assertEquals("renamed", jdbcTemplate(shard).queryForObject("select name from users where id = ?",
+                String.class, bookerId));
+        }
+
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            assertEquals(itemIds.stream().sorted().toList(),
+                itemService.findItems("lantern").stream().map(ItemDto::getId).toList());
+            assertEquals(SHARDS, scope.count());
+        }
+        assertEquals(SHARDS, itemService.findItems("lantern", Projection.of(ItemField.NAME)).size());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Long bookingId = bookingService.addBooking(InwardBookingDto.builder().itemId(itemIds.get(i))
+                .start(start.plusHours(i)).end(start.plusHours(i + 1)).build(), bookerId).getId();
+            assertEquals(shards.ofId(itemIds.get(i)), shards.ofId(bookingId));
+            bookingIds.add(0, bookingId);
+        }
+        List<OutwardBookingDto> first;
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            first = bookingService.getUserBookings(bookerId, State.ALL, BookingCursor.FIRST, 2);
+            assertEquals(2 * SHARDS, scope.count());
+        }
+        assertEquals(bookingIds.subList(0, 2), ids(first));
+        assertEquals(bookingIds.subList(2, 3), ids(bookingService.getUserBookings(bookerId, State.ALL,
+            BookingCursor.after(first.get(1)), 2)));
+
+        Long ownerId = itemService.getItem(itemIds.get(0), bookerId).getUser().getId();
+        assertEquals(bookingIds.subList(2, 3), ids(bookingService.getOwnerBookings(ownerId, State.ALL,
+            BookingCursor.FIRST, null)));
+        assertEquals(bookingIds.get(2), itemService.getItem(itemIds.get(0), ownerId).getNextBooking().getId());
+    }
+
+    private int count(int shard, String table, Long id) {
+        return jdbcTemplate(shard).queryForObject("select count(*) from " + table + " where id = ?", Integer.class,
+            id);
+    }
+
+    private JdbcTemplate jdbcTemplate(int shard) {
+        return new JdbcTemplate((DataSource) shardRoutingDataSource.getResolvedDataSources().get(shard));
+    }
+
+    private static List<Long> ids(List<OutwardBookingDto> bookings) {
+        return bookings.stream().map(OutwardBookingDto::getId).toList();
+    }
+
+    private Long addUser(String name) {
+        return userService.addUser(UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com")
+            .build()).getId();
+    }
+}
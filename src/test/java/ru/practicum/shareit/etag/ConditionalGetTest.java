@@ -0,0 +1,144 @@
+package ru.practicum.shareit.etag;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.statementCount;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ConditionalGetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerId = addUser("owner");
+        bookerId = addUser("booker");
+        ItemDto itemDto = ItemDto.builder().name("kayak").description("two seats").available(true).build();
+        itemId = postJson("/items", ownerId, itemDto).get("id").asLong();
+    }
+
+    @Test
+    void unchangedItemIsNotModifiedAfterOneStatement() throws Exception {
+        String tag = tag(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId));
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId)
+                .header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isNotModified()).andExpect(statementCount(1)).andExpect(content().string(""));
+        assertNotEquals(tag, tag(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, bookerId)));
+    }
+
+    @Test
+    void itemTagChangesWithEditsBookingsCommentsAndAuthorRenames() throws Exception {
+        String created = itemTag();
+        mockMvc.perform(patch("/items/{itemId}", itemId).contentType("application/json")
+                .header(SharerPrincipal.HEADER, ownerId).content("{\"available\": false}"))
+            .andExpect(status().isOk());
+        String edited = assertModified(created);
+        mockMvc.perform(patch("/items/{itemId}", itemId).contentType("application/json")
+                .header(SharerPrincipal.HEADER, ownerId).content("{\"available\": true}"))
+            .andExpect(status().isOk());
+        String reopened = assertModified(edited);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        long bookingId = postJson("/bookings", bookerId, InwardBookingDto.builder().itemId(itemId).start(start)
+            .end(start.plusDays(1)).build()).get("id").asLong();
+        String booked = assertModified(reopened);
+        mockMvc.perform(patch("/bookings/{bookingId}", bookingId).header(SharerPrincipal.HEADER, ownerId)
+            .param("approved", "true")).andExpect(status().isOk());
+        String approved = assertModified(booked);
+
+        postJson("/items/" + itemId + "/comment", bookerId, InCommentDto.builder().text("dry inside").build());
+        String commented = assertModified(approved);
+        mockMvc.perform(patch("/users/{userId}", bookerId).contentType("application/json")
+            .content("{\"name\": \"renamed\"}")).andExpect(status().isOk());
+        assertModified(commented);
+    }
+
+    @Test
+    void userAndBookingTagsFollowTheirContent() throws Exception {
+        String user = tag(get("/users/{userId}", bookerId));
+        mockMvc.perform(get("/users/{userId}", bookerId).header(HttpHeaders.IF_NONE_MATCH, user))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(patch("/users/{userId}", bookerId).contentType("application/json")
+            .content("{\"name\": \"renamed\"}")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{userId}", bookerId).header(HttpHeaders.IF_NONE_MATCH, user))
+            .andExpect(status().isOk());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long bookingId = postJson("/bookings", bookerId, InwardBookingDto.builder().itemId(itemId).start(start)
+            .end(start.plusDays(1)).build()).get("id").asLong();
+        String waiting = tag(get("/bookings/{bookingId}", bookingId).header(SharerPrincipal.HEADER, bookerId));
+        mockMvc.perform(get("/bookings/{bookingId}", bookingId).header(SharerPrincipal.HEADER, bookerId)
+            .header(HttpHeaders.IF_NONE_MATCH, waiting)).andExpect(status().isNotModified());
+        mockMvc.perform(patch("/bookings/{bookingId}", bookingId).header(SharerPrincipal.HEADER, ownerId)
+            .param("approved", "false")).andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/{bookingId}", bookingId).header(SharerPrincipal.HEADER, bookerId)
+            .header(HttpHeaders.IF_NONE_MATCH, waiting)).andExpect(status().isOk());
+    }
+
+    private String itemTag() throws Exception {
+        return tag(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId));
+    }
+
+    private String assertModified(String previous) throws Exception {
+        String tag = mockMvc.perform(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId)
+                .header(HttpHeaders.IF_NONE_MATCH, previous))
+            .andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(tag);
+        assertNotEquals(previous, tag);
+        return tag;
+    }
+
+    private String tag(MockHttpServletRequestBuilder request) throws Exception {
+        String tag = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertNotNull(tag);
+        return tag;
+    }
+
+    private JsonNode postJson(String path, long userId, Object body) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(post(path).contentType("application/json")
+                .header(SharerPrincipal.HEADER, userId).content(objectMapper.writeValueAsString(body)))
+            .andExpect(status().is2xxSuccessful()).andReturn().getResponse().getContentAsString());
+    }
+
+    private long addUser(String name) throws Exception {
+        UserDto userDto = UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com").build();
+        return objectMapper.readTree(mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+    }
+}
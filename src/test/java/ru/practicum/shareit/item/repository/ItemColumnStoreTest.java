@@ -0,0 +1,138 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.IdIndex;
+import ru.practicum.shareit.storage.LongMultimap;
+import ru.practicum.shareit.storage.MapEntityStore;
+import ru.practicum.shareit.user.model.User;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The footprint report compares the boxed map layout with the column store and its primitive owner index.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=ItemColumnStoreTest -DargLine=-Xmx4g
+ * [-Dbenchmark.items=1000000,10000000]}.
+ */
+class ItemColumnStoreTest {
+    private static final int OWNERS = 100_000;
+
+    @Test
+    void storesReadsAndSearchesRows() {
+        ItemColumnStore store = new ItemColumnStore();
+        store.put(1, item(1, "Cordless Drill", "18V", true, 7));
+        store.put(2, item(2, "drill bits", null, false, 7));
+        store.put(5_000, item(5_000, null, "Hammer DRILL", true, 8));
+
+        assertEquals(item(1, "Cordless Drill", "18V", true, 7), store.get(1));
+        assertEquals(item(2, "drill bits", null, false, 7), store.get(2));
+        assertEquals(item(5_000, null, "Hammer DRILL", true, 8), store.get(5_000));
+        assertNull(store.get(3));
+        assertNull(store.get(1L << 40));
+        assertArrayEquals(new long[]{1, 5_000}, store.search("drill").toArray());
+        assertArrayEquals(new long[0], store.search("l1").toArray());
+
+        assertEquals(item(1, "Cordless Drill", "18V", true, 7),
+            store.put(1, item(1, "Corded drill", "230V", false, 7)));
+        assertArrayEquals(new long[]{5_000}, store.search("drill").toArray());
+        assertEquals(item(5_000, null, "Hammer DRILL", true, 8), store.remove(5_000));
+        assertArrayEquals(new long[]{1, 2}, store.ids().toArray());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void ownerIndexKeepsValuesPerKeyAcrossResizes() {
+        LongMultimap index = new LongMultimap(4);
+        for (long item = 1; item <= 10_000; item++) {
+            index.add(item % 1_000, item);
+        }
+        index.remove(7, 1_007);
+        index.remove(7, 99);
+
+        assertEquals(9, index.get(7).length);
+        assertArrayEquals(new long[]{7, 2_007, 3_007, 4_007, 5_007, 6_007, 7_007, 8_007, 9_007}, index.get(7));
+        assertEquals(10, index.removeAll(8).length);
+        assertEquals(0, index.get(8).length);
+        assertEquals(10, index.get(9).length);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportFootprint() {
+        int[] sizes = Arrays.stream(System.getProperty("benchmark.items", "1000000,10000000").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        System.out.printf("%-10s %-8s %10s %10s %12s%n", "items", "layout", "heap MB", "bytes/item", "search ms");
+        for (int size : sizes) {
+            report(size, "boxed", () -> {
+                MapEntityStore<Item> store = new MapEntityStore<>();
+                IdIndex ownerIndex = new IdIndex();
+                for (long id = 1; id <= size; id++) {
+                    Item item = generate(id);
+                    store.put(id, item);
+                    ownerIndex.add(item.getUser().getId(), id);
+                }
+                return new Object[]{store, ownerIndex};
+            }, layout -> {
+                @SuppressWarnings("unchecked")
+                MapEntityStore<Item> store = (MapEntityStore<Item>) ((Object[]) layout)[0];
+                String text = "SKU" + (size / 2 + 1);
+                return store.values()
+                    .filter(x -> x.getAvailable() && (x.getName().toLowerCase().contains(text.toLowerCase()) ||
+                        x.getDescription().toLowerCase().contains(text.toLowerCase())))
+                    .count();
+            });
+            report(size, "columns", () -> {
+                ItemColumnStore store = new ItemColumnStore();
+                LongMultimap ownerIndex = new LongMultimap(64);
+                for (long id = 1; id <= size; id++) {
+                    Item item = generate(id);
+                    store.put(id, item);
+                    ownerIndex.add(item.getUser().getId(), id);
+                }
+                return new Object[]{store, ownerIndex};
+            }, layout -> {
+                ItemColumnStore store = (ItemColumnStore) ((Object[]) layout)[0];
+                return store.search(("SKU" + (size / 2 + 1)).toLowerCase()).count();
+            });
+        }
+    }
+
+    private static void report(int size, String name, Supplier<Object> build,
+                               ToLongFunction<Object> search) {
+        long before = usedHeap();
+        Object layout = build.get();
+        long used = usedHeap() - before;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long started = System.nanoTime();
+            assertEquals(1, search.applyAsLong(layout));
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        System.out.printf("%-10d %-8s %,10d %10d %,12.1f%n", size, name, used >> 20, used / size, best / 1e6);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static Item generate(long id) {
+        return item(id, "Item " + id, "Description of item " + id + " sku" + id, id % 10 != 0, id % OWNERS + 1);
+    }
+
+    private static Item item(long id, String name, String description, boolean available, long ownerId) {
+        return Item.builder().id(id).name(name).description(description).available(available)
+            .user(User.builder().id(ownerId).build()).build();
+    }
+}
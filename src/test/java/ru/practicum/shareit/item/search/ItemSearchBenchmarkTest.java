@@ -0,0 +1,181 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.datasource.Shards;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compares the trigram index with the JPQL {@code LIKE} search over a large catalogue, and times the index updates
+ * of edits, items turning unavailable and deletions.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=ItemSearchBenchmarkTest -DargLine=-Xmx3g
+ * [-Dbenchmark.items=N]}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ItemSearchBenchmarkTest {
+    private static final int WORDS = 5_000;
+    private static final int BATCH = 10_000;
+    private static final int WRITES = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TrigramItemSearch trigramItemSearch;
+    @Autowired
+    private Shards shards;
+
+    @Test
+    void compareTrigramIndexWithJpqlSearch() {
+        int items = Integer.getInteger("benchmark.items", 1_000_000);
+        Random random = new Random(11);
+        String[] vocabulary = vocabulary(random);
+        seed(items, vocabulary, random);
+        long indexStarted = System.nanoTime();
+        trigramItemSearch.rebuild();
+        System.out.printf("items: %,d, index built in %,d ms%n", items, (System.nanoTime() - indexStarted) / 1_000_000);
+
+        JpqlItemSearch jpqlItemSearch = new JpqlItemSearch(itemRepository, shards);
+        List<String> selective = new ArrayList<>();
+        List<String> common = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            selective.add(String.format("sku%07d", random.nextInt(items)));
+            common.add(vocabulary[random.nextInt(WORDS)]);
+        }
+        List<String> queries = new ArrayList<>(selective);
+        queries.addAll(common);
+        for (String query : queries) {
+            assertEquals(ids(jpqlItemSearch.search(query)), ids(trigramItemSearch.search(query)), query);
+        }
+        measure("jpql like", jpqlItemSearch, queries);
+        measure("trigram index", trigramItemSearch, queries);
+        measureIds("trigram ids, selective", selective);
+        measureIds("trigram ids, common", common);
+        List<String> shortQueries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            shortQueries.add(i % 4 == 0 ? String.valueOf((char) ('a' + random.nextInt(26)))
+                : vocabulary[random.nextInt(WORDS)].substring(0, 2));
+        }
+        measureIds("short ids, via jpql", shortQueries);
+        measureWrites(common, vocabulary, random);
+    }
+
+    /**
+     * Edits that swap the words of an item, moving it between common posting lists, then items turning
+     * unavailable and deletions, each timed per item under the write lock that searches wait on.
+     */
+    private void measureWrites(List<String> common, String[] vocabulary, Random random) {
+        List<Long> ids = new ArrayList<>();
+        for (String query : common) {
+            for (long id : trigramItemSearch.searchIds(query)) {
+                ids.add(id);
+            }
+        }
+        List<Long> sample = ids.stream().distinct().limit(3L * WRITES).toList();
+        List<Long> edited = sample.subList(0, WRITES);
+        Set<Long> unavailable = new HashSet<>(sample.subList(WRITES, 2 * WRITES));
+        Set<Long> removed = new HashSet<>(sample.subList(2 * WRITES, sample.size()));
+
+        long started = System.nanoTime();
+        for (Long id : edited) {
+            trigramItemSearch.update(Item.builder().id(id).available(true)
+                .name(vocabulary[random.nextInt(WORDS)] + " " + vocabulary[random.nextInt(WORDS)])
+                .description(String.format("sku%07d %s", id, vocabulary[random.nextInt(WORDS)])).build());
+        }
+        System.out.printf("%-22s %,12d ns/op%n", "trigram edit", (System.nanoTime() - started) / edited.size());
+        started = System.nanoTime();
+        for (Long id : unavailable) {
+            trigramItemSearch.update(Item.builder().id(id).available(false).name("").description("").build());
+        }
+        System.out.printf("%-22s %,12d ns/op%n", "trigram unavailable",
+            (System.nanoTime() - started) / unavailable.size());
+        started = System.nanoTime();
+        for (Long id : removed) {
+            trigramItemSearch.remove(List.of(id));
+        }
+        System.out.printf("%-22s %,12d ns/op%n", "trigram remove", (System.nanoTime() - started) / removed.size());
+
+        for (String query : common) {
+            for (long id : trigramItemSearch.searchIds(query)) {
+                assertFalse(unavailable.contains(id) || removed.contains(id), query);
+            }
+        }
+    }
+
+    private void measureIds(String name, List<String> queries) {
+        long started = System.nanoTime();
+        for (String query : queries) {
+            trigramItemSearch.searchIds(query);
+        }
+        System.out.printf("%-22s %,12d ns/op%n", name, (System.nanoTime() - started) / queries.size());
+    }
+
+    private void measure(String name, ItemSearch search, List<String> queries) {
+        long started = System.nanoTime();
+        int results = 0;
+        for (String query : queries) {
+            results += search.search(query).size();
+        }
+        System.out.printf("%-22s %,12d ns/op (%d results)%n", name, (System.nanoTime() - started) / queries.size(),
+            results);
+    }
+
+    private void seed(int items, String[] vocabulary, Random random) {
+        jdbcTemplate.update("insert into users (name, email) values ('owner', ?)", "owner" + System.nanoTime() + "@bench");
+        Long ownerId = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int i = 0; i < items; i++) {
+            String name = vocabulary[random.nextInt(WORDS)] + " " + vocabulary[random.nextInt(WORDS)];
+            StringBuilder description = new StringBuilder(String.format("sku%07d", i));
+            for (int word = 0; word < 5; word++) {
+                description.append(' ').append(vocabulary[random.nextInt(WORDS)]);
+            }
+            rows.add(new Object[]{name, description.toString(), ownerId, random.nextInt(10) != 0});
+            if (rows.size() == BATCH) {
+                insert(rows);
+            }
+        }
+        insert(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into item (name, description, owner_id, available) values (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,291 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.DataOperationException;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.item.dto.CommentCursor;
+import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeWindowDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.metrics.StatementCounter;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class ItemServiceImplTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(10);
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemBookingPointers itemBookingPointers;
+    @Autowired
+    private ItemSearch itemSearch;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = addUser("owner");
+        bookerId = addUser("booker");
+        itemId = itemService.addItem(ItemDto.builder().name("tent").description("four-person tent").available(true)
+            .build(), ownerId).getId();
+    }
+
+    @Test
+    void getAvailabilityReturnsWholeRangeForUnbookedItem() {
+        assertEquals(List.of(new TimeWindowDto(FROM, TO)), itemService.getAvailability(itemId, FROM, TO));
+    }
+
+    @Test
+    void getAvailabilityMergesBookedIntervalsAndSkipsRejected() {
+        book(FROM.minusDays(1), FROM.plusDays(1));
+        book(FROM.plusDays(3), FROM.plusDays(5));
+        book(FROM.plusDays(5), FROM.plusDays(6));
+        OutwardBookingDto rejected = book(FROM.plusDays(7), FROM.plusDays(8));
+        bookingService.approveBooking(rejected.getId(), ownerId, false);
+        book(TO.minusDays(1), TO.plusDays(1));
+
+        assertEquals(List.of(new TimeWindowDto(FROM.plusDays(1), FROM.plusDays(3)),
+                new TimeWindowDto(FROM.plusDays(6), TO.minusDays(1))),
+            itemService.getAvailability(itemId, FROM, TO));
+    }
+
+    @Test
+    void getAvailabilityRejectsEmptyRange() {
+        assertThrows(DataOperationException.class, () -> itemService.getAvailability(itemId, TO, FROM));
+    }
+
+    @Test
+    void findItemsMatchesJpqlSearchAfterEdits() {
+        Long drill = itemService.addItem(ItemDto.builder().name("Cordless Drill").description("18V, two batteries")
+            .available(true).build(), ownerId).getId();
+        Long saw = itemService.addItem(ItemDto.builder().name("Circular saw").description("Cuts wood, not drills")
+            .available(true).build(), ownerId).getId();
+        itemService.addItem(ItemDto.builder().name("Drill bits").description("hidden").available(false).build(),
+            ownerId);
+        itemService.editItem(ItemDto.builder().name("Hammer drill").build(), ownerId, drill);
+        itemService.editItem(ItemDto.builder().available(false).build(), ownerId, saw);
+
+        for (String text : List.of("drill", "DRILL", "dri", "hammer", "cordless", "saw", "l b", "ll", "x", "l", "r", "tent")) {
+            assertEquals(ids(itemRepository.findByNameOrDescriptionAndAvailable(text)),
+                itemService.findItems(text).stream().map(ItemDto::getId).sorted().toList(), text);
+        }
+    }
+
+    @Test
+    void getItemsReturnsOwnerViewWithConstantStatementCount() {
+        LocalDateTime now = LocalDateTime.now();
+        OutwardBookingDto past = book(now.minusDays(3), now.minusDays(2));
+        book(now.minusDays(5), now.minusDays(4));
+        OutwardBookingDto future = book(now.plusDays(2), now.plusDays(3));
+        book(now.plusDays(4), now.plusDays(5));
+        commentRepository.save(Comment.builder().text("great tent").item(itemRepository.getReferenceById(itemId))
+            .author(User.builder().id(bookerId).build()).build());
+
+        List<ItemDto> single;
+        int singleItemStatements;
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            single = itemService.getItems(ownerId);
+            singleItemStatements = scope.count();
+        }
+        for (int i = 0; i < 5; i++) {
+            itemService.addItem(ItemDto.builder().name("tent " + i).description("spare").available(true).build(),
+                ownerId);
+        }
+        List<ItemDto> several;
+        int severalItemsStatements;
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            several = itemService.getItems(ownerId);
+            severalItemsStatements = scope.count();
+        }
+
+        ItemDto tent = single.get(0);
+        assertEquals(past.getId(), tent.getLastBooking().getId());
+        assertEquals(future.getId(), tent.getNextBooking().getId());
+        assertEquals(List.of("great tent"), tent.getComments().stream().map(ItemCommentDto::getText).toList());
+        assertEquals(6, several.size());
+        assertEquals(singleItemStatements, severalItemsStatements);
+    }
+
+    @Test
+    void bookingPointersFollowDecisionsAndTime() {
+        LocalDateTime now = LocalDateTime.now();
+        OutwardBookingDto past = book(now.minusDays(3), now.minusDays(2));
+        OutwardBookingDto soon = book(now.plusDays(1), now.plusDays(2));
+        OutwardBookingDto later = book(now.plusDays(3), now.plusDays(4));
+
+        ItemDto owned = itemService.getItem(itemId, ownerId);
+        assertEquals(past.getId(), owned.getLastBooking().getId());
+        assertEquals(soon.getId(), owned.getNextBooking().getId());
+        ItemDto borrowed = itemService.getItem(itemId, bookerId);
+        assertNull(borrowed.getLastBooking());
+        assertNull(borrowed.getNextBooking());
+
+        bookingService.approveBooking(soon.getId(), ownerId, false);
+        assertEquals(later.getId(), itemService.getItem(itemId, ownerId).getNextBooking().getId());
+
+        itemBookingPointers.advance(now.plusDays(5));
+        owned = itemService.getItem(itemId, ownerId);
+        assertEquals(later.getId(), owned.getLastBooking().getId());
+        assertNull(owned.getNextBooking());
+    }
+
+    @Test
+    void getItemEmbedsNewestCommentsAndCommentsArePaged() {
+        LocalDateTime now = LocalDateTime.now();
+        book(now.minusDays(3), now.minusDays(2));
+        List<Long> added = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            added.add(itemService.addComment(InCommentDto.builder().text(i < 2 ? "same" : "comment " + i).build(),
+                itemId, bookerId).getId());
+        }
+        List<Long> newestFirst = added.stream().sorted(Comparator.reverseOrder()).toList();
+
+        ItemDto item = itemService.getItem(itemId, bookerId);
+        assertEquals(13, item.getCommentCount());
+        assertEquals(newestFirst.subList(0, 10), item.getComments().stream().map(ItemCommentDto::getId).toList());
+        assertEquals("booker", item.getComments().get(0).getAuthor().getName());
+
+        List<Long> paged = new ArrayList<>();
+        CommentCursor cursor = CommentCursor.FIRST;
+        List<ItemCommentDto> page;
+        do {
+            page = itemService.getComments(itemId, cursor, 5);
+            page.forEach(x -> paged.add(x.getId()));
+            cursor = page.isEmpty() ? cursor : CommentCursor.after(page.get(page.size() - 1));
+        } while (page.size() == 5);
+        assertEquals(newestFirst, paged);
+        assertThrows(EntityNotFoundException.class, () -> itemService.getComments(Long.MAX_VALUE,
+            CommentCursor.FIRST, 5));
+
+        userService.deleteUser(bookerId);
+        assertEquals(0, itemService.getItem(itemId, ownerId).getCommentCount());
+    }
+
+    @Test
+    void deletedBookerNoLongerHoldsTheirSlots() {
+        book(FROM, TO);
+        Long otherId = addUser("other");
+
+        userService.deleteUser(bookerId);
+
+        assertEquals(List.of(new TimeWindowDto(FROM, TO)), itemService.getAvailability(itemId, FROM, TO));
+        bookingService.addBooking(InwardBookingDto.builder().itemId(itemId).start(FROM).end(TO).build(), otherId);
+    }
+
+    @Test
+    void deletedBookerNoLongerShowsAsLastOrNextBooking() {
+        LocalDateTime now = LocalDateTime.now();
+        Long otherId = addUser("other");
+        OutwardBookingDto earlier = bookingService.addBooking(InwardBookingDto.builder().itemId(itemId)
+            .start(now.minusDays(4)).end(now.minusDays(3)).build(), otherId);
+        book(now.minusDays(2), now.minusDays(1));
+        book(now.plusDays(1), now.plusDays(2));
+
+        userService.deleteUser(bookerId);
+
+        ItemDto item = itemService.getItem(itemId, ownerId);
+        assertEquals(earlier.getId(), item.getLastBooking().getId());
+        assertNull(item.getNextBooking());
+    }
+
+    @Test
+    void searchIndexFollowsEditsAndDeletions() {
+        Long lenderId = addUser("lender");
+        Long lampId = itemService.addItem(ItemDto.builder().name("brass lamp").description("desk lamp")
+            .available(true).build(), lenderId).getId();
+        Long kettleId = itemService.addItem(ItemDto.builder().name("brass kettle").description("kettle")
+            .available(true).build(), ownerId).getId();
+        assertArrayEquals(new long[]{lampId, kettleId}, itemSearch.searchIds("brass"));
+
+        itemService.editItem(ItemDto.builder().name("copper lamp").build(), lenderId, lampId);
+        assertArrayEquals(new long[]{kettleId}, itemSearch.searchIds("brass"));
+        assertArrayEquals(new long[]{lampId}, itemSearch.searchIds("copper"));
+
+        itemService.editItem(ItemDto.builder().available(false).build(), ownerId, kettleId);
+        assertArrayEquals(new long[0], itemSearch.searchIds("kettle"));
+
+        userService.deleteUser(lenderId);
+        assertArrayEquals(new long[0], itemSearch.searchIds("copper"));
+    }
+
+    @Test
+    void concurrentEditsLeaveTheSearchIndexOnTheLastSavedText() throws Exception {
+        int edits = 200;
+        List<Callable<ItemDto>> tasks = new ArrayList<>();
+        for (int i = 0; i < edits; i++) {
+            String name = String.format("variant%03d", i);
+            tasks.add(() -> itemService.editItem(ItemDto.builder().name(name).build(), ownerId, itemId));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (Future<ItemDto> edit : executor.invokeAll(tasks)) {
+                edit.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String saved = itemRepository.findById(itemId).orElseThrow().getName();
+        for (int i = 0; i < edits; i++) {
+            String name = String.format("variant%03d", i);
+            assertArrayEquals(name.equals(saved) ? new long[]{itemId} : new long[0], itemSearch.searchIds(name), name);
+        }
+    }
+
+    private List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).sorted().toList();
+    }
+
+    private OutwardBookingDto book(LocalDateTime start, LocalDateTime end) {
+        return bookingService.addBooking(InwardBookingDto.builder().itemId(itemId).start(start).end(end).build(),
+            bookerId);
+    }
+
+    private Long addUser(String name) {
+        return userService.addUser(UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com")
+            .build()).getId();
+    }
+}
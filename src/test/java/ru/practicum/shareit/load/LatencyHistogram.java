@@ -0,0 +1,83 @@
+package ru.practicum.shareit.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent log-linear latency histogram in microseconds: every power-of-two range is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a reported percentile is at most about 6% above the true value.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+
+    void record(long micros) {
+        counts.incrementAndGet(index(Math.max(0, micros)));
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Upper bound, in microseconds, of the bucket holding the {@code quantile} sample.
+     */
+    long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    /**
+     * Non-empty buckets merged into power-of-two ranges, as {@code [upper bound in us, count]} pairs.
+     */
+    List<long[]> ranges() {
+        List<long[]> ranges = new ArrayList<>();
+        for (int magnitude = 0; magnitude < MAGNITUDES; magnitude++) {
+            long count = 0;
+            for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                count += counts.get(magnitude * SUB_BUCKETS + sub);
+            }
+            if (count > 0) {
+                ranges.add(new long[]{upperBound(magnitude * SUB_BUCKETS + SUB_BUCKETS - 1), count});
+            }
+        }
+        return ranges;
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        int sub = (int) (micros >>> (magnitude - 1)) - SUB_BUCKETS;
+        return Math.min(MAGNITUDES * SUB_BUCKETS - 1, magnitude * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBound(int index) {
+        int magnitude = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (magnitude - 1)) - 1;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load: every client sends its next request as soon as the previous one completes.
+ * Clients are virtual threads, so thousands of them cost little on the generating side.
+ */
+final class LoadGenerator {
+    private final HttpClient httpClient;
+    private final List<HttpRequest> requests;
+
+    LoadGenerator(URI baseUri, List<String> paths, String userIdHeader, long userId) {
+        this.httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        this.requests = paths.stream()
+            .map(path -> HttpRequest.newBuilder(baseUri.resolve(path))
+                .header(userIdHeader, String.valueOf(userId))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build())
+            .toList();
+    }
+
+    Result run(int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>(clients);
+        List<int[]> counts = new ArrayList<>(clients);
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                long[] samples = new long[1024];
+                int[] count = new int[1];
+                latencies.add(samples);
+                counts.add(count);
+                int first = client;
+                executor.submit(() -> {
+                    long[] own = samples;
+                    for (int i = first; System.nanoTime() < deadline; i++) {
+                        long sent = System.nanoTime();
+                        if (!send(requests.get(i % requests.size()))) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count[0] == own.length) {
+                            own = Arrays.copyOf(own, own.length * 2);
+                            latencies.set(first, own);
+                        }
+                        own[count[0]++] = System.nanoTime() - sent;
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        int total = counts.stream().mapToInt(x -> x[0]).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (int client = 0; client < clients; client++) {
+            int count = counts.get(client)[0];
+            System.arraycopy(latencies.get(client), 0, all, position, count);
+            position += count;
+        }
+        Arrays.sort(all);
+        return new Result(clients, total, errors.get(), total * 1e9 / elapsed, percentile(all, 0.50),
+            percentile(all, 0.99));
+    }
+
+    private boolean send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1_000;
+    }
+
+    record Result(int clients, long requests, long errors, double throughput, long p50Micros, long p99Micros) {
+        @Override
+        public String toString() {
+            return String.format("clients %,6d: %,9.0f req/s, p50 %,8d us, p99 %,9d us, %,d requests, %,d errors",
+                clients, throughput, p50Micros, p99Micros, requests, errors);
+        }
+    }
+}
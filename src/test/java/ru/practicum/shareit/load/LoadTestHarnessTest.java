@@ -0,0 +1,135 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on an embedded H2, runs the {@link ScenarioRunner} mix and compares every endpoint with
+ * the baseline file: the build fails when p99 grows or throughput drops by more than {@code loadtest.threshold},
+ * or when more than {@code loadtest.max-failure-rate} of the requests fail. A missing baseline is written from
+ * the current run. Run with {@code mvn -Pload-test test}, see the profile for the tunable properties.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LoadTestHarnessTest {
+    private static final String P99 = ".p99";
+    private static final String THROUGHPUT = ".throughput";
+
+    @Test
+    void runScenarioAndCompareWithBaseline() throws Exception {
+        int clients = Integer.getInteger("loadtest.clients", 50);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.seconds", 30));
+        double writeRatio = Double.parseDouble(System.getProperty("loadtest.write-ratio", "0.2"));
+        double threshold = Double.parseDouble(System.getProperty("loadtest.threshold", "0.25"));
+        double maxFailureRate = Double.parseDouble(System.getProperty("loadtest.max-failure-rate", "0.01"));
+        Path baseline = Path.of(System.getProperty("loadtest.baseline", "load-test-baseline.properties"));
+        Path report = Path.of(System.getProperty("loadtest.report", "target/load-test-report.json"));
+
+        Map<String, ScenarioRunner.EndpointResult> results;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItApp.class)
+            .profiles("test")
+            .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.ru.practicum=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            ScenarioRunner runner = new ScenarioRunner(URI.create("http://localhost:" + port));
+            runner.run(clients, warmup, writeRatio);
+            results = runner.run(clients, duration, writeRatio);
+        }
+        print(clients, writeRatio, results);
+        writeReport(report, results);
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, ScenarioRunner.EndpointResult> entry : results.entrySet()) {
+            ScenarioRunner.EndpointResult result = entry.getValue();
+            if (result.failures() > result.requests() * maxFailureRate) {
+                regressions.add(String.format("%s: %d of %d requests failed", entry.getKey(), result.failures(),
+                    result.requests()));
+            }
+        }
+        if (Files.exists(baseline) && !Boolean.getBoolean("loadtest.update-baseline")) {
+            regressions.addAll(compare(load(baseline), results, threshold));
+        } else {
+            store(baseline, results);
+            System.out.println("Load test baseline written to " + baseline.toAbsolutePath());
+        }
+        assertTrue(regressions.isEmpty(), String.join("\n", regressions));
+    }
+
+    private static List<String> compare(Properties baseline, Map<String, ScenarioRunner.EndpointResult> results,
+                                        double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, ScenarioRunner.EndpointResult> entry : results.entrySet()) {
+            String endpoint = entry.getKey();
+            ScenarioRunner.EndpointResult result = entry.getValue();
+            String p99 = baseline.getProperty(endpoint + P99);
+            if (p99 != null && result.p99Micros() > Long.parseLong(p99) * (1 + threshold)) {
+                regressions.add(String.format("%s: p99 %d us exceeds baseline %s us by more than %.0f%%", endpoint,
+                    result.p99Micros(), p99, threshold * 100));
+            }
+            String throughput = baseline.getProperty(endpoint + THROUGHPUT);
+            if (throughput != null && result.throughput() < Double.parseDouble(throughput) * (1 - threshold)) {
+                regressions.add(String.format("%s: throughput %.1f req/s is below baseline %s req/s by more than %.0f%%",
+                    endpoint, result.throughput(), throughput, threshold * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static void print(int clients, double writeRatio, Map<String, ScenarioRunner.EndpointResult> results) {
+        System.out.printf("clients: %d, write ratio: %.2f%n", clients, writeRatio);
+        System.out.printf("%-20s %9s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "failed", "req/s",
+            "p50 us", "p90 us", "p99 us");
+        results.forEach((endpoint, result) -> {
+            System.out.printf("%-20s %9d %8d %10.1f %10d %10d %10d%n", endpoint, result.requests(), result.failures(),
+                result.throughput(), result.p50Micros(), result.p90Micros(), result.p99Micros());
+            for (long[] range : result.histogram()) {
+                System.out.printf("    <= %,12d us %8d%n", range[0], range[1]);
+            }
+        });
+    }
+
+    private static void writeReport(Path report, Map<String, ScenarioRunner.EndpointResult> results)
+        throws IOException {
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+    }
+
+    private static Properties load(Path baseline) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(baseline)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void store(Path baseline, Map<String, ScenarioRunner.EndpointResult> results) throws IOException {
+        Properties properties = new Properties();
+        results.forEach((endpoint, result) -> {
+            properties.setProperty(endpoint + P99, String.valueOf(result.p99Micros()));
+            properties.setProperty(endpoint + THROUGHPUT, String.format(Locale.ROOT, "%.1f", result.throughput()));
+        });
+        try (Writer writer = Files.newBufferedWriter(baseline)) {
+            properties.store(writer, "Load test baseline, regenerate with -Dloadtest.update-baseline=true");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scripted mixed read/write scenario against a running ShareIt instance. Every client registers a user and an
+ * item, then loops until the deadline: with probability {@code writeRatio} it creates a user, an item or a
+ * booking of another client's item, otherwise it reads a user, its own items, a search or its bookings.
+ * Latencies and failures are kept per endpoint.
+ */
+final class ScenarioRunner {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2040, 1, 1, 0, 0);
+    private static final String[] WORDS = {"drill", "saw", "ladder", "tent", "bicycle", "kayak", "projector"};
+
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> itemIds = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    ScenarioRunner(URI baseUri) {
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    }
+
+    Map<String, EndpointResult> run(int clients, Duration duration, double writeRatio) throws InterruptedException {
+        latencies.clear();
+        failures.clear();
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> client(deadline, writeRatio));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Map<String, EndpointResult> results = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            LongAdder failed = failures.get(entry.getKey());
+            results.put(entry.getKey(), new EndpointResult(histogram.count(), failed == null ? 0 : failed.sum(),
+                histogram.count() / seconds, histogram.percentile(0.50), histogram.percentile(0.90),
+                histogram.percentile(0.99), histogram.ranges()));
+        }
+        return results;
+    }
+
+    private void client(long deadline, double writeRatio) {
+        Long userId = createUser();
+        Long itemId = userId == null ? null : createItem(userId);
+        if (itemId == null) {
+            return;
+        }
+        Set<Long> ownItemIds = new HashSet<>();
+        ownItemIds.add(itemId);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            if (random.nextDouble() < writeRatio) {
+                switch (random.nextInt(3)) {
+                    case 0 -> createUser();
+                    case 1 -> {
+                        Long created = createItem(userId);
+                        if (created != null) {
+                            ownItemIds.add(created);
+                        }
+                    }
+                    default -> createBooking(userId, ownItemIds);
+                }
+            } else {
+                switch (random.nextInt(4)) {
+                    case 0 -> send("GET /users/{id}", get("/users/" + userId, null));
+                    case 1 -> send("GET /items", get("/items", userId));
+                    case 2 -> send("GET /items/search", get("/items/search?text=" + WORDS[random.nextInt(WORDS.length)],
+                        userId));
+                    default -> send("GET /bookings", get("/bookings?size=20", userId));
+                }
+            }
+        }
+    }
+
+    private Long createUser() {
+        ObjectNode body = objectMapper.createObjectNode()
+            .put("name", "load")
+            .put("email", "load" + sequence.incrementAndGet() + "-" + System.nanoTime() + "@load.test");
+        return id(send("POST /users", post("/users", null, body)));
+    }
+
+    private Long createItem(Long userId) {
+        String word = WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+        ObjectNode body = objectMapper.createObjectNode()
+            .put("name", word + " " + sequence.incrementAndGet())
+            .put("description", "load test " + word)
+            .put("available", true);
+        Long itemId = id(send("POST /items", post("/items", userId, body)));
+        if (itemId != null) {
+            synchronized (itemIds) {
+                itemIds.add(itemId);
+            }
+        }
+        return itemId;
+    }
+
+    private void createBooking(Long userId, Set<Long> ownItemIds) {
+        Long itemId;
+        synchronized (itemIds) {
+            itemId = itemIds.get(ThreadLocalRandom.current().nextInt(itemIds.size()));
+        }
+        if (ownItemIds.contains(itemId)) {
+            return;
+        }
+        LocalDateTime start = EPOCH.plusHours(sequence.incrementAndGet());
+        ObjectNode body = objectMapper.createObjectNode()
+            .put("itemId", itemId)
+            .put("start", start.toString())
+            .put("end", start.plusMinutes(30).toString());
+        send("POST /bookings", post("/bookings", userId, body));
+    }
+
+    private HttpRequest get(String path, Long userId) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(60));
+        if (userId != null) {
+            builder.header(USER_ID_HEADER, userId.toString());
+        }
+        return builder.GET().build();
+    }
+
+    private HttpRequest post(String path, Long userId, ObjectNode body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json");
+        if (userId != null) {
+            builder.header(USER_ID_HEADER, userId.toString());
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+    }
+
+    private String send(String endpoint, HttpRequest request) {
+        long sent = System.nanoTime();
+        String body = null;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 == 2) {
+                body = response.body();
+            }
+        } catch (IOException e) {
+            body = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        latencies.computeIfAbsent(endpoint, x -> new LatencyHistogram()).record((System.nanoTime() - sent) / 1_000);
+        if (body == null) {
+            failures.computeIfAbsent(endpoint, x -> new LongAdder()).increment();
+        }
+        return body;
+    }
+
+    private Long id(String body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    record EndpointResult(long requests, long failures, double throughput, long p50Micros, long p90Micros,
+                          long p99Micros, List<long[]> histogram) {
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the application once on platform threads and once on virtual threads, and drives {@code GET /bookings} and
+ * {@code GET /items} with a growing number of concurrent clients. Both runs use the {@code virtual-threads} profile,
+ * so they share its connection pool and Tomcat connection limits, and only {@code spring.threads.virtual.enabled}
+ * differs: with Tomcat's default of 8192 connections the platform run would be capped at 10k clients by the
+ * connection limit rather than by its threads.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest=ThreadModelBenchmarkTest [-Dbenchmark.clients=1000,5000,10000]
+ * [-Dbenchmark.seconds=10]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadModelBenchmarkTest {
+    private static final List<String> PATHS = List.of("/bookings?size=20", "/items");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2040, 1, 1, 0, 0);
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        int[] clients = Arrays.stream(System.getProperty("benchmark.clients", "1000,5000,10000").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        Duration duration = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 10));
+        List<String> report = new ArrayList<>();
+        report.addAll(measure("platform threads", false, clients, duration));
+        report.addAll(measure("virtual threads", true, clients, duration));
+        report.forEach(System.out::println);
+    }
+
+    private List<String> measure(String mode, boolean virtualThreads, int[] clients, Duration duration)
+        throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItApp.class)
+            .profiles("test", "virtual-threads")
+            .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.ru.practicum=WARN",
+                "--spring.threads.virtual.enabled=" + virtualThreads)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            long userId = seed(context);
+            LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), PATHS,
+                SharerPrincipal.HEADER, userId);
+            generator.run(100, Duration.ofSeconds(3));
+            for (int count : clients) {
+                LoadGenerator.Result result = generator.run(count, duration);
+                lines.add(String.format("%-16s %s", mode, result));
+                assertTrue(result.requests() > 0, mode);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Creates a user who owns ten items and has booked ten items of another owner, so that both endpoints return
+     * non-trivial pages.
+     */
+    private static long seed(ConfigurableApplicationContext context) {
+        UserService userService = context.getBean(UserService.class);
+        ItemService itemService = context.getBean(ItemService.class);
+        BookingService bookingService = context.getBean(BookingService.class);
+        Long userId = userService.addUser(UserDto.builder().name("client").email("client@bench").build()).getId();
+        Long otherId = userService.addUser(UserDto.builder().name("other").email("other@bench").build()).getId();
+        for (int i = 0; i < 10; i++) {
+            itemService.addItem(ItemDto.builder().name("own " + i).description("bench").available(true).build(),
+                userId);
+            Long itemId = itemService.addItem(ItemDto.builder().name("other " + i).description("bench")
+                .available(true).build(), otherId).getId();
+            bookingService.addBooking(InwardBookingDto.builder().itemId(itemId).start(EPOCH.plusDays(i))
+                .end(EPOCH.plusDays(i + 1)).build(), userId);
+        }
+        return userId;
+    }
+}
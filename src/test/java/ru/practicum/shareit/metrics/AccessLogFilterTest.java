@@ -0,0 +1,90 @@
+package ru.practicum.shareit.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class AccessLogFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        accessLogger().addAppender(events);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger().detachAppender(events);
+    }
+
+    @Test
+    void requestIsLoggedWithEndpointUserSizeAndStatements() throws Exception {
+        UserDto userDto = UserDto.builder().name("logged").email("logged" + System.nanoTime() + "@javabeans.com")
+            .build();
+        long userId = objectMapper.readTree(mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+        events.list.clear();
+
+        mockMvc.perform(get("/users/{userId}", userId).header(SharerPrincipal.HEADER, userId))
+            .andExpect(status().isOk());
+
+        assertEquals(1, events.list.size());
+        String line = events.list.get(0).getFormattedMessage();
+        for (String expected : List.of("method=GET", "endpoint=/users/{userId}", "status=200", "user=" + userId,
+            "size=1", "statements=1", "latencyMicros=")) {
+            assertTrue(line.contains(expected), () -> "missing " + expected + " in " + line);
+        }
+    }
+
+    @Test
+    void unsampledRequestsAreSkippedButServerErrorsAreNot() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(0.0);
+        FilterChain ok = (request, response) -> ((HttpServletResponse) response).setStatus(200);
+        FilterChain failing = (request, response) -> ((HttpServletResponse) response).setStatus(503);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/items"), new MockHttpServletResponse(), ok);
+        filter.doFilter(new MockHttpServletRequest("GET", "/items"), new MockHttpServletResponse(), failing);
+
+        assertEquals(1, events.list.size());
+        assertTrue(events.list.get(0).getFormattedMessage().contains("status=503"));
+    }
+
+    private static Logger accessLogger() {
+        return (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DirtiesContext
+class ServiceTimingAspectTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void prometheusEndpointExposesServiceRepositoryAndPoolMetrics() throws Exception {
+        UserDto userDto = UserDto.builder().name("metrics").email("metrics" + System.nanoTime() + "@javabeans.com")
+            .build();
+        String created = mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        long userId = objectMapper.readTree(created).get("id").asLong();
+        mockMvc.perform(get("/bookings/owner").header(USER_ID_HEADER, userId).param("state", "WAITING"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/{bookingId}", Long.MAX_VALUE).header(USER_ID_HEADER, userId))
+            .andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertContains(scrape, "shareit_service_seconds_count{method=\"getOwnerBookings\",outcome=\"success\"," +
+            "service=\"BookingServiceImpl\",state=\"WAITING\"}");
+        assertContains(scrape, "shareit_service_seconds_count{method=\"getBooking\",outcome=\"NotFoundException\"," +
+            "service=\"BookingServiceImpl\",state=\"none\"}");
+        assertContains(scrape, "shareit_service_seconds_bucket{method=\"addUser\"");
+        assertContains(scrape, "spring_data_repository_invocations_seconds_count{exception=\"None\"," +
+            "method=\"findAllByOwnerIdAndStatus\",repository=\"BookingRepository\"");
+        assertContains(scrape, "hikaricp_connections_active{");
+    }
+
+    private static void assertContains(String scrape, String expected) {
+        assertTrue(scrape.contains(expected), () -> "missing " + expected);
+    }
+}
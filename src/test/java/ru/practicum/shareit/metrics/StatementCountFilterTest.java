@@ -0,0 +1,116 @@
+package ru.practicum.shareit.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.maxStatementCount;
+import static ru.practicum.shareit.metrics.StatementCountMatchers.statementCount;
+
+@SpringBootTest(properties = "shareit.sql.statement-budget=" + StatementCountFilterTest.BUDGET)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+@ExtendWith(OutputCaptureExtension.class)
+class StatementCountFilterTest {
+    static final int BUDGET = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private long ownerId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerId = addUser("owner");
+    }
+
+    @Test
+    void itemReadsDoNotGrowWithTheNumberOfItems() throws Exception {
+        long itemId = addBookedItem(0);
+        int items = count(get("/items").header(SharerPrincipal.HEADER, ownerId));
+        int item = count(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId));
+        int search = count(get("/items/search").param("text", "statement"));
+        for (int i = 1; i <= 5; i++) {
+            addBookedItem(i);
+        }
+
+        assertEquals(items, count(get("/items").header(SharerPrincipal.HEADER, ownerId)));
+        assertEquals(item, count(get("/items/{itemId}", itemId).header(SharerPrincipal.HEADER, ownerId)));
+        assertEquals(search, count(get("/items/search").param("text", "statement")));
+    }
+
+    @Test
+    void ownerItemViewReadsOneItemRowAndTheComments() throws Exception {
+        long itemId = addBookedItem(0);
+        JsonNode item = objectMapper.readTree(mockMvc.perform(get("/items/{itemId}", itemId)
+                .header(SharerPrincipal.HEADER, ownerId))
+            .andExpect(status().isOk()).andExpect(statementCount(2))
+            .andReturn().getResponse().getContentAsString());
+
+        assertTrue(item.get("lastBooking").hasNonNull("id"), item.toString());
+        assertTrue(item.get("nextBooking").hasNonNull("id"), item.toString());
+    }
+
+    @Test
+    void requestsOverBudgetAreLogged(CapturedOutput output) throws Exception {
+        addBookedItem(0);
+        mockMvc.perform(get("/items").header(SharerPrincipal.HEADER, ownerId))
+            .andExpect(status().isOk()).andExpect(maxStatementCount(BUDGET + 10));
+
+        assertTrue(output.getOut().contains("GET /items issued "), "no over-budget warning logged");
+    }
+
+    private int count(MockHttpServletRequestBuilder request) throws Exception {
+        return (Integer) mockMvc.perform(request).andExpect(status().isOk()).andReturn().getRequest()
+            .getAttribute(StatementCountFilter.REQUEST_ATTRIBUTE);
+    }
+
+    private long addBookedItem(int i) throws Exception {
+        ItemDto itemDto = ItemDto.builder().name("statement " + i).description("counted").available(true).build();
+        long itemId = postJson("/items", ownerId, itemDto).get("id").asLong();
+        long bookerId = addUser("booker" + i);
+        for (int day = -2; day <= 2; day += 4) {
+            InwardBookingDto booking = InwardBookingDto.builder().itemId(itemId)
+                .start(LocalDateTime.now().plusDays(day)).end(LocalDateTime.now().plusDays(day).plusHours(1)).build();
+            postJson("/bookings", bookerId, booking);
+        }
+        return itemId;
+    }
+
+    private JsonNode postJson(String path, long userId, Object body) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(post(path).contentType("application/json")
+                .header(SharerPrincipal.HEADER, userId).content(objectMapper.writeValueAsString(body)))
+            .andReturn().getResponse().getContentAsString());
+    }
+
+    private long addUser(String name) throws Exception {
+        UserDto userDto = UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com").build();
+        return objectMapper.readTree(mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.metrics;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers for the statement count recorded by {@link StatementCountFilter}.
+ */
+public final class StatementCountMatchers {
+    private StatementCountMatchers() {
+    }
+
+    public static ResultMatcher statementCount(int expected) {
+        return result -> assertEquals(expected, count(result.getRequest().getAttribute(
+            StatementCountFilter.REQUEST_ATTRIBUTE)), () -> "SQL statements for " + result.getRequest().getRequestURI());
+    }
+
+    public static ResultMatcher maxStatementCount(int max) {
+        return result -> {
+            int count = count(result.getRequest().getAttribute(StatementCountFilter.REQUEST_ATTRIBUTE));
+            assertTrue(count <= max, () -> result.getRequest().getRequestURI() + " issued " + count +
+                " SQL statements, expected at most " + max);
+        };
+    }
+
+    public static ResultMatcher insertCount(int expected) {
+        return result -> assertEquals(expected, count(result.getRequest().getAttribute(
+            StatementCountFilter.INSERTS_ATTRIBUTE)), () -> "SQL inserts for " + result.getRequest().getRequestURI());
+    }
+
+    private static int count(Object attribute) {
+        assertNotNull(attribute, "no statement count recorded, is StatementCountFilter registered?");
+        return (Integer) attribute;
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.projection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.metrics.StatementCounter;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.principal.SharerPrincipal;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class SparseFieldsTest {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private long ownerId;
+    private long bookerId;
+    private String word;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerId = addUser("owner");
+        bookerId = addUser("booker");
+        word = "sparse" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            ItemDto itemDto = ItemDto.builder().name(word + " " + i).description("narrow rows").available(true).build();
+            long itemId = postJson("/items", ownerId, itemDto).get("id").asLong();
+            LocalDateTime start = LocalDateTime.now().plusDays(i + 1);
+            postJson("/bookings", bookerId, InwardBookingDto.builder().itemId(itemId).start(start)
+                .end(start.plusHours(1)).build());
+        }
+    }
+
+    @Test
+    void itemListingsSelectOnlyTheRequestedColumns() throws Exception {
+        Recorded items = perform(get("/items").header(SharerPrincipal.HEADER, ownerId).param("fields", "id,name"));
+
+        assertEquals(3, items.json().size());
+        for (JsonNode item : items.json()) {
+            assertEquals(List.of("id", "name"), names(item));
+        }
+        assertFalse(items.sql().contains("description"), items.sql());
+        assertFalse(items.sql().contains("join"), items.sql());
+
+        Recorded found = perform(get("/items/search").param("text", word).param("fields", "user,name"));
+        assertEquals(3, found.json().size());
+        assertEquals(List.of("name", "user"), names(found.json().get(0)));
+        assertEquals(ownerId, found.json().get(0).get("user").get("id").asLong());
+        assertNotNull(found.json().get(0).get("user").get("email").textValue());
+    }
+
+    @Test
+    void bookingListingsPageWithoutSelectingTheCursorFields() throws Exception {
+        Recorded first = perform(get("/bookings").header(SharerPrincipal.HEADER, bookerId)
+            .param("fields", "status").param("size", "2"));
+
+        assertEquals(2, first.json().size());
+        assertEquals(List.of("status"), names(first.json().get(0)));
+        assertFalse(first.sql().contains("join"), first.sql());
+        assertNotNull(first.cursor());
+        Recorded rest = perform(get("/bookings").header(SharerPrincipal.HEADER, bookerId)
+            .param("fields", "status").param("size", "2").param("cursor", first.cursor()));
+        assertEquals(1, rest.json().size());
+        assertNull(rest.cursor());
+    }
+
+    @Test
+    void allFieldsRenderLikeTheFullRepresentation() throws Exception {
+        JsonNode full = perform(get("/bookings/owner").header(SharerPrincipal.HEADER, ownerId)).json();
+        JsonNode sparse = perform(get("/bookings/owner").header(SharerPrincipal.HEADER, ownerId)
+            .param("fields", "id,start,end,item,booker,status")).json();
+
+        assertEquals(full, sparse);
+    }
+
+    @Test
+    void unknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/items").header(SharerPrincipal.HEADER, ownerId).param("fields", "id,comments"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/bookings").header(SharerPrincipal.HEADER, bookerId).param("fields", ""))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Recorded perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result;
+        List<String> statements;
+        try (StatementCounter.Scope scope = StatementCounter.record()) {
+            result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            statements = scope.statements();
+        }
+        // the listing query is the last one, after the principal lookup
+        String sql = statements.isEmpty() ? "" : statements.get(statements.size() - 1).toLowerCase(Locale.ROOT);
+        return new Recorded(objectMapper.readTree(result.getResponse().getContentAsString()), sql,
+            result.getResponse().getHeader(NEXT_CURSOR_HEADER));
+    }
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private JsonNode postJson(String path, long userId, Object body) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(post(path).contentType("application/json")
+                .header(SharerPrincipal.HEADER, userId).content(objectMapper.writeValueAsString(body)))
+            .andExpect(status().is2xxSuccessful()).andReturn().getResponse().getContentAsString());
+    }
+
+    private long addUser(String name) throws Exception {
+        UserDto userDto = UserDto.builder().name(name).email(name + System.nanoTime() + "@javabeans.com").build();
+        return objectMapper.readTree(mockMvc.perform(post("/users").contentType("application/json")
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private record Recorded(JsonNode json, String sql, String cursor) {
+    }
+}
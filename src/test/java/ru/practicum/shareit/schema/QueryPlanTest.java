@@ -0,0 +1,357 @@
+package ru.practicum.shareit.schema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingField;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingProjectionRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemField;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemProjectionRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.metrics.StatementCounter;
+import ru.practicum.shareit.projection.Projection;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@code EXPLAIN} for every query declared by the repositories on a seeded embedded database and fails when
+ * a plan no longer uses the index the query was written for, or scans a table it is not expected to scan.
+ * A new repository method fails the test until its expected plan is added to {@link #plans()}. Default methods
+ * only combine declared queries and are not checked themselves.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shareit-plans;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class QueryPlanTest {
+    private static final List<Class<?>> REPOSITORIES = List.of(BookingRepository.class,
+        BookingProjectionRepository.class, ItemRepository.class, ItemProjectionRepository.class,
+        CommentRepository.class, UserRepository.class);
+    private static final LocalDateTime NOW = LocalDateTime.of(2040, 1, 1, 0, 0);
+    private static final int USERS = 200;
+    private static final int ITEMS_PER_USER = 10;
+    private static final int BOOKINGS_PER_ITEM = 20;
+    private static final int ARCHIVED_PER_ITEM = 5;
+    private static final int COMMENTS_PER_ITEM = 2;
+    private static final String TABLE_SCAN = ".tableScan";
+    // the indexes H2 adds for foreign keys, equivalent to the composite ones for a lookup of the leading column
+    private static final String OWNER_FK_INDEX = "ITEM_USERS_FK_INDEX";
+    private static final String BOOKING_ITEM_FK_INDEX = "ITEM_FK_INDEX";
+    private static final String COMMENT_ITEM_FK_INDEX = "COMMENT_ITEM_FK_INDEX";
+    private static final String COMMENT_AUTHOR_FK_INDEX = "COMMENT_USER_FK_INDEX";
+    private static final String ANY = "\\|";
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyRepositoryQueryUsesItsIndex() {
+        seed();
+        Map<String, Plan> plans = plans();
+        List<String> failures = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                String name = repository.getSimpleName() + "." + method.getName();
+                if (!method.isSynthetic() && !method.isDefault() && !plans.containsKey(name)) {
+                    failures.add(name + ": no expected plan");
+                }
+            }
+        }
+        plans.forEach((name, plan) -> {
+            List<String> statements;
+            try (StatementCounter.Scope scope = StatementCounter.record()) {
+                plan.query().run();
+                statements = scope.statements();
+            }
+            if (statements.size() != 1) {
+                failures.add(name + ": expected one statement, got " + statements);
+                return;
+            }
+            String explained = explain(statements.get(0));
+            for (String expected : plan.uses()) {
+                if (Arrays.stream(expected.split(ANY)).noneMatch(explained::contains)) {
+                    failures.add(name + ": plan does not use " + expected + "\n" + explained);
+                }
+            }
+            if (explained.contains(TABLE_SCAN) && plan.uses().stream().noneMatch(x -> x.endsWith(TABLE_SCAN))) {
+                failures.add(name + ": plan scans a table\n" + explained);
+            }
+        });
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    private Map<String, Plan> plans() {
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        LocalDateTime cursor = NOW.plusYears(1);
+        Limit limit = Limit.of(20);
+        Set<Status> occupying = Set.of(Status.WAITING, Status.APPROVED);
+        List<Long> itemIds = List.of(1L, 2L, 3L);
+
+        plans.put("BookingRepository.findAllByUserId", new Plan(
+            () -> bookingRepository.findAllByUserId(1L, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_START_IDX")));
+        plans.put("BookingRepository.findAllByUserIdAndStatus", new Plan(
+            () -> bookingRepository.findAllByUserIdAndStatus(1L, Status.WAITING, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_STATUS_START_IDX")));
+        plans.put("BookingRepository.findAllByUserIdCurrent", new Plan(
+            () -> bookingRepository.findAllByUserIdCurrent(1L, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_START_IDX")));
+        plans.put("BookingRepository.findAllByUserIdFuture", new Plan(
+            () -> bookingRepository.findAllByUserIdFuture(1L, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_START_IDX")));
+        plans.put("BookingRepository.findAllByUserIdPast", new Plan(
+            () -> bookingRepository.findAllByUserIdPast(1L, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_START_IDX")));
+        plans.put("BookingProjectionRepository.findProjectedByUserId", new Plan(
+            () -> bookingRepository.findProjectedByUserId(Projection.of(BookingField.STATUS), 1L, State.ALL, false,
+                cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_BOOKER_START_IDX")));
+        plans.put("BookingProjectionRepository.findProjectedByOwnerId", new Plan(
+            () -> bookingRepository.findProjectedByOwnerId(Projection.of(BookingField.STATUS), 1L, State.ALL, false,
+                cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllByOwnerId", new Plan(
+            () -> bookingRepository.findAllByOwnerId(1L, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllByOwnerIdAndStatus", new Plan(
+            () -> bookingRepository.findAllByOwnerIdAndStatus(1L, Status.WAITING, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllByOwnerIdCurrent", new Plan(
+            () -> bookingRepository.findAllByOwnerIdCurrent(1L, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllByOwnerIdFuture", new Plan(
+            () -> bookingRepository.findAllByOwnerIdFuture(1L, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllByOwnerIdPast", new Plan(
+            () -> bookingRepository.findAllByOwnerIdPast(1L, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllArchivedByUserId", new Plan(
+            () -> bookingRepository.findAllArchivedByUserId(1L, cursor, Long.MAX_VALUE, limit),
+            index("BOOKING_ARCHIVE_BOOKER_START_IDX")));
+        plans.put("BookingRepository.findAllArchivedByOwnerId", new Plan(
+            () -> bookingRepository.findAllArchivedByOwnerId(1L, cursor, Long.MAX_VALUE, limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ARCHIVE_ITEM_START_IDX")));
+        plans.put("BookingRepository.findAllArchivedByUserIdAndStatus", new Plan(
+            () -> bookingRepository.findAllArchivedByUserIdAndStatus(1L, Status.REJECTED, cursor, Long.MAX_VALUE,
+                limit),
+            index("BOOKING_ARCHIVE_BOOKER_START_IDX")));
+        plans.put("BookingRepository.findAllArchivedByOwnerIdAndStatus", new Plan(
+            () -> bookingRepository.findAllArchivedByOwnerIdAndStatus(1L, Status.REJECTED, cursor, Long.MAX_VALUE,
+                limit),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ARCHIVE_ITEM_START_IDX")));
+        plans.put("BookingRepository.findViewByIdAndParticipantId", new Plan(
+            () -> bookingRepository.findViewByIdAndParticipantId(1L, 1L),
+            primaryKey()));
+        plans.put("BookingRepository.findArchivedViewByIdAndParticipantId", new Plan(
+            () -> bookingRepository.findArchivedViewByIdAndParticipantId(1L, 1L),
+            primaryKey()));
+        plans.put("BookingRepository.existsArchivedById", new Plan(
+            () -> bookingRepository.existsArchivedById(1L),
+            primaryKey()));
+        plans.put("BookingRepository.findWithItemAndBookerById", new Plan(
+            () -> bookingRepository.findWithItemAndBookerById(1L),
+            primaryKey()));
+        plans.put("BookingRepository.updateStatus", new Plan(
+            () -> bookingRepository.updateStatus(-1L, 1L, Status.WAITING, Status.APPROVED),
+            primaryKey(), index("ITEM_OWNER_IDX", OWNER_FK_INDEX)));
+        // rebuilds the interval index at startup from most of the table
+        plans.put("BookingRepository.findAllIntervalsByStatusIn", new Plan(
+            () -> bookingRepository.findAllIntervalsByStatusIn(occupying),
+            scan("BOOKING")));
+        plans.put("BookingRepository.findAllIntervalsByBookerIdAndStatusIn", new Plan(
+            () -> bookingRepository.findAllIntervalsByBookerIdAndStatusIn(1L, occupying),
+            index("BOOKING_BOOKER_STATUS_START_IDX")));
+        plans.put("BookingRepository.findAllIntervalsByOwnerIdAndStatusIn", new Plan(
+            () -> bookingRepository.findAllIntervalsByOwnerIdAndStatusIn(1L, occupying),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX), index("BOOKING_ITEM_START_IDX", BOOKING_ITEM_FK_INDEX)));
+        plans.put("BookingRepository.findAllIntervalsByItemIdBetween", new Plan(
+            () -> bookingRepository.findAllIntervalsByItemIdBetween(1L, occupying, NOW, cursor),
+            index("BOOKING_ITEM_START_IDX")));
+        plans.put("BookingRepository.findItemIdsByStatusInAndStartBetween", new Plan(
+            () -> bookingRepository.findItemIdsByStatusInAndStartBetween(occupying, NOW, NOW.plusMinutes(1)),
+            index("BOOKING_START_IDX")));
+        plans.put("BookingRepository.findItemIdsByStatusInAndEndBetween", new Plan(
+            () -> bookingRepository.findItemIdsByStatusInAndEndBetween(occupying, NOW, NOW.plusMinutes(1)),
+            index("BOOKING_END_IDX")));
+        plans.put("BookingRepository.existsByItemIdAndBookerIdAndEndIsLessThanEqual", new Plan(
+            () -> bookingRepository.existsByItemIdAndBookerIdAndEndIsLessThanEqual(1L, 1L, NOW),
+            index("BOOKING_ITEM_BOOKER_END_IDX")));
+        plans.put("BookingRepository.existsArchivedByItemIdAndBookerId", new Plan(
+            () -> bookingRepository.existsArchivedByItemIdAndBookerId(1L, 1L),
+            index("BOOKING_ARCHIVE_ITEM_BOOKER_IDX")));
+        plans.put("BookingRepository.findArchivableIntervals", new Plan(
+            () -> bookingRepository.findArchivableIntervals(Set.of(Status.APPROVED, Status.REJECTED), NOW, limit),
+            index("BOOKING_END_IDX"), index("ITEM_LAST_BOOKING_IDX")));
+        plans.put("BookingRepository.copyToArchive", new Plan(
+            () -> bookingRepository.copyToArchive(List.of(-1L)),
+            primaryKey()));
+
+        plans.put("ItemRepository.findByUserIdAndId", new Plan(
+            () -> itemRepository.findByUserIdAndId(1L, 1L),
+            primaryKey()));
+        plans.put("ItemRepository.findAllByUserId", new Plan(
+            () -> itemRepository.findAllByUserId(1L),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX)));
+        plans.put("ItemRepository.findWithBookingsById", new Plan(
+            () -> itemRepository.findWithBookingsById(1L),
+            primaryKey()));
+        plans.put("ItemRepository.findViewStateById", new Plan(
+            () -> itemRepository.findViewStateById(1L),
+            primaryKey()));
+        plans.put("ItemProjectionRepository.findProjectedByUserId", new Plan(
+            () -> itemRepository.findProjectedByUserId(Projection.of(ItemField.NAME), 1L),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX)));
+        plans.put("ItemProjectionRepository.findProjectedByIdIn", new Plan(
+            () -> itemRepository.findProjectedByIdIn(Projection.of(ItemField.NAME), itemIds),
+            primaryKey()));
+        plans.put("ItemRepository.findIdsByOwnerId", new Plan(
+            () -> itemRepository.findIdsByOwnerId(1L),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX)));
+        plans.put("ItemRepository.findAllWithBookingsByUserId", new Plan(
+            () -> itemRepository.findAllWithBookingsByUserId(1L),
+            index("ITEM_OWNER_IDX", OWNER_FK_INDEX)));
+        plans.put("ItemRepository.refreshBookingPointers", new Plan(
+            () -> itemRepository.refreshBookingPointers(itemIds, occupying, NOW),
+            primaryKey(), index("BOOKING_ITEM_END_IDX"), index("BOOKING_ITEM_START_IDX")));
+        plans.put("ItemRepository.refreshCommentCounts", new Plan(
+            () -> itemRepository.refreshCommentCounts(itemIds),
+            primaryKey(), index("COMMENT_ITEM_CREATED_IDX", COMMENT_ITEM_FK_INDEX)));
+        // substring search cannot use a b-tree index, the in-memory search index serves it instead; with the owners
+        // fetched H2 may drive the join from either table
+        plans.put("ItemRepository.findByNameOrDescriptionAndAvailable", new Plan(
+            () -> itemRepository.findByNameOrDescriptionAndAvailable("item"),
+            scan("ITEM") + "|" + scan("USERS")));
+        plans.put("ItemRepository.findAllWithUserByIdIn", new Plan(
+            () -> itemRepository.findAllWithUserByIdIn(itemIds),
+            primaryKey()));
+        plans.put("ItemRepository.findIdsByNameOrDescriptionAndAvailable", new Plan(
+            () -> itemRepository.findIdsByNameOrDescriptionAndAvailable("item"),
+            primaryKey()));
+        // loads the in-memory search index at startup
+        plans.put("ItemRepository.findAllAvailableDocuments", new Plan(
+            () -> itemRepository.findAllAvailableDocuments(),
+            scan("ITEM")));
+
+        plans.put("CommentRepository.findAllByItemId", new Plan(
+            () -> commentRepository.findAllByItemId(1L, cursor, Long.MAX_VALUE, limit),
+            index("COMMENT_ITEM_CREATED_IDX")));
+        plans.put("CommentRepository.findNewestByItemIdIn", new Plan(
+            () -> commentRepository.findNewestByItemIdIn(itemIds, 10),
+            index("COMMENT_ITEM_CREATED_IDX", COMMENT_ITEM_FK_INDEX)));
+        plans.put("CommentRepository.findItemIdsByAuthorId", new Plan(
+            () -> commentRepository.findItemIdsByAuthorId(1L),
+            index("COMMENT_AUTHOR_IDX", COMMENT_AUTHOR_FK_INDEX)));
+
+        plans.put("UserRepository.findByEmail", new Plan(
+            () -> userRepository.findByEmail("user1@plan"),
+            index("EMAIL_UNIQUE")));
+        // a merge by primary key, which H2 does not show in the plan
+        plans.put("UserRepository.copy", new Plan(
+            () -> userRepository.copy(1L, "user1", "user1@plan")));
+        return plans;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet result = statement.executeQuery()) {
+                    result.next();
+                    return result.getString(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Enough rows per table for the planner to prefer an index over a scan.
+     */
+    private void seed() {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> archived = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        long itemId = 0;
+        long bookingId = 0;
+        long commentId = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            users.add(new Object[]{userId, "user" + userId, "user" + userId + "@plan"});
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                items.add(new Object[]{++itemId, "item " + itemId, "plan", userId, true});
+                for (int b = 0; b < BOOKINGS_PER_ITEM; b++) {
+                    LocalDateTime start = NOW.plusDays(b - BOOKINGS_PER_ITEM / 2);
+                    (b < ARCHIVED_PER_ITEM ? archived : bookings).add(new Object[]{++bookingId,
+                        Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)), itemId,
+                        (bookingId % USERS) + 1, Status.values()[b % Status.values().length].name()});
+                }
+                for (int c = 0; c < COMMENTS_PER_ITEM; c++) {
+                    comments.add(new Object[]{++commentId, "comment", itemId, userId, Timestamp.valueOf(NOW)});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into USERS (ID, NAME, EMAIL) values (?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into ITEM (ID, NAME, DESCRIPTION, OWNER_ID, AVAILABLE) values (?, ?, ?, ?, ?)",
+            items);
+        jdbcTemplate.batchUpdate("insert into booking (id, start_date, end_date, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?, ?)", bookings);
+        jdbcTemplate.batchUpdate("insert into booking_archive (id, start_date, end_date, item_id, booker_id, status) " +
+            "values (?, ?, ?, ?, ?, ?)", archived);
+        jdbcTemplate.batchUpdate("insert into comment (id, text, item_id, author_id, created) values (?, ?, ?, ?, ?)",
+            comments);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private static String index(String... names) {
+        return Arrays.stream(names).map(x -> "PUBLIC." + x).collect(Collectors.joining("|"));
+    }
+
+    private static String primaryKey() {
+        return "PUBLIC.PRIMARY_KEY_";
+    }
+
+    private static String scan(String table) {
+        return "PUBLIC." + table + TABLE_SCAN;
+    }
+
+    private record Plan(Runnable query, List<String> uses) {
+        Plan(Runnable query, String... uses) {
+            this(query, List.of(uses));
+        }
+    }
+}
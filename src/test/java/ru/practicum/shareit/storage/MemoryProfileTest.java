@@ -0,0 +1,87 @@
+package ru.practicum.shareit.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.controller.State;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.InwardBookingDto;
+import ru.practicum.shareit.booking.dto.OutwardBookingDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingStubRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.dto.InCommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@DirtiesContext
+class MemoryProfileTest {
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+
+    @Test
+    void servicesRunWithoutDatabase() {
+        assertTrue(context.getBeansOfType(DataSource.class).isEmpty());
+        assertInstanceOf(BookingStubRepository.class, context.getBean(BookingRepository.class));
+
+        Long ownerId = userService.addUser(UserDto.builder().name("owner").email("owner@memory").build()).getId();
+        Long bookerId = userService.addUser(UserDto.builder().name("booker").email("booker@memory").build()).getId();
+        assertThrows(ConflictException.class,
+            () -> userService.addUser(UserDto.builder().name("copy").email("owner@memory").build()));
+        Long itemId = itemService.addItem(ItemDto.builder().name("Tent").description("four-person tent")
+            .available(true).build(), ownerId).getId();
+        assertEquals(List.of(itemId), itemService.findItems("TENT").stream().map(ItemDto::getId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        OutwardBookingDto past = bookingService.addBooking(InwardBookingDto.builder().itemId(itemId)
+            .start(now.minusDays(3)).end(now.minusDays(2)).build(), bookerId);
+        OutwardBookingDto future = bookingService.addBooking(InwardBookingDto.builder().itemId(itemId)
+            .start(now.plusDays(2)).end(now.plusDays(3)).build(), bookerId);
+        assertEquals(Status.APPROVED, bookingService.approveBooking(future.getId(), ownerId, true).getStatus());
+        assertEquals(List.of(future.getId(), past.getId()), bookingService.getOwnerBookings(ownerId, State.ALL,
+            BookingCursor.FIRST, null).stream().map(OutwardBookingDto::getId).toList());
+        assertEquals(List.of(future.getId()), bookingService.getUserBookings(bookerId, State.FUTURE,
+            BookingCursor.FIRST, null).stream().map(OutwardBookingDto::getId).toList());
+        assertEquals("Tent", bookingService.getBooking(past.getId(), bookerId).getItem().getName());
+
+        assertEquals("booker", itemService.addComment(InCommentDto.builder().text("dry inside").build(), itemId,
+            bookerId).getAuthorName());
+        ItemDto tent = itemService.getItems(ownerId).get(0);
+        assertEquals(past.getId(), tent.getLastBooking().getId());
+        assertEquals(future.getId(), tent.getNextBooking().getId());
+        assertEquals(List.of("dry inside"), tent.getComments().stream().map(ItemCommentDto::getText).toList());
+        assertEquals(1, tent.getCommentCount());
+        assertEquals("owner", tent.getUser().getName());
+
+        userService.deleteUser(bookerId);
+        assertTrue(bookingService.getOwnerBookings(ownerId, State.ALL, BookingCursor.FIRST, null).isEmpty());
+        ItemDto withoutComments = itemService.getItem(itemId, ownerId);
+        assertTrue(withoutComments.getComments().isEmpty());
+        assertEquals(0, withoutComments.getCommentCount());
+    }
+}
@@ -0,0 +1,210 @@
+package ru.practicum.shareit.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingStubRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentStubRepository;
+import ru.practicum.shareit.item.repository.ItemStubRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserStubRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers the {@code memory} profile repositories from many threads and checks that ids, unique emails and the
+ * secondary indexes stay consistent. The scaling report runs the same mix with a growing number of threads:
+ * {@code mvn test -Dbenchmark=true -Dtest=StubStorageStressTest [-Dbenchmark.seconds=5]}.
+ */
+class StubStorageStressTest {
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 200;
+    private static final int CONTESTED_EMAILS = 50;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2040, 1, 1, 0, 0);
+
+    private final UserStubRepository userRepository = new UserStubRepository();
+    private final ItemStubRepository itemRepository = new ItemStubRepository(userRepository);
+    private final BookingStubRepository bookingRepository = new BookingStubRepository(itemRepository,
+        userRepository);
+    private final CommentStubRepository commentRepository = new CommentStubRepository(itemRepository,
+        userRepository);
+
+    @Test
+    void concurrentWritesKeepIdsEmailsAndIndexesConsistent() throws Exception {
+        AtomicInteger contestedWins = new AtomicInteger();
+        List<Long> deleted = new ArrayList<>();
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                User user = userRepository.save(User.builder().name("user").email(thread + "-" + i + "@stress")
+                    .build());
+                Item item = itemRepository.save(Item.builder().name("item").description("stress").available(true)
+                    .user(user).build());
+                itemRepository.save(Item.builder().id(item.getId()).name("renamed").description("stress")
+                    .available(i % 2 == 0).user(user).build());
+                bookingRepository.save(Booking.builder().start(EPOCH.plusHours(i)).end(EPOCH.plusHours(i + 1))
+                    .item(item).booker(user).status(Status.WAITING).build());
+                try {
+                    userRepository.save(User.builder().name("contested")
+                        .email("shared-" + i % CONTESTED_EMAILS + "@stress").build());
+                    contestedWins.incrementAndGet();
+                } catch (DataIntegrityViolationException e) {
+                    // another thread owns the email
+                }
+                if (i % 10 == 0) {
+                    userRepository.deleteById(user.getId());
+                    synchronized (deleted) {
+                        deleted.add(user.getId());
+                    }
+                }
+            }
+        });
+
+        assertEquals(CONTESTED_EMAILS, contestedWins.get());
+        List<User> users = userRepository.findAll();
+        assertEquals(THREADS * USERS_PER_THREAD - deleted.size() + CONTESTED_EMAILS, users.size());
+        assertEquals(users.size(), users.stream().map(User::getEmail).distinct().count());
+        for (User user : users) {
+            assertEquals(user.getId(), userRepository.findByEmail(user.getEmail()).getId());
+        }
+        List<Item> items = itemRepository.findAll();
+        assertEquals(THREADS * USERS_PER_THREAD - deleted.size(), items.size());
+        assertEquals(items.size(), bookingRepository.findAll().size());
+        for (Item item : items) {
+            assertEquals(List.of(item.getId()), itemRepository.findAllByUserId(item.getUser().getId()).stream()
+                .map(Item::getId).toList());
+            assertEquals("renamed", item.getName());
+            assertEquals(1, bookingRepository.findAllByOwnerId(item.getUser().getId(), BookingCursor.FIRST.start(),
+                BookingCursor.FIRST.id(), Limit.unlimited()).size());
+        }
+        for (Long userId : deleted) {
+            assertEquals(0, itemRepository.findIdsByUserId(userId).length);
+            assertTrue(bookingRepository.findAllByUserId(userId, BookingCursor.FIRST.start(),
+                BookingCursor.FIRST.id(), Limit.unlimited()).isEmpty());
+        }
+        assertTrue(commentRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void saveRacingDeleteOfReferencedUserLeavesNoOrphans() throws Exception {
+        User owner = userRepository.save(User.builder().name("owner").email("owner@race").build());
+        Item item = itemRepository.save(Item.builder().name("item").description("race").available(true).user(owner)
+            .build());
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < USERS_PER_THREAD * THREADS; i++) {
+            bookers.add(userRepository.save(User.builder().name("booker").email(i + "@race").build()));
+        }
+        runConcurrently(2, thread -> {
+            for (User booker : bookers) {
+                if (thread == 0) {
+                    try {
+                        bookingRepository.save(Booking.builder().start(EPOCH).end(EPOCH.plusHours(1)).item(item)
+                            .booker(booker).status(Status.WAITING).build());
+                    } catch (DataIntegrityViolationException e) {
+                        // the booker is already gone
+                    }
+                } else {
+                    userRepository.deleteById(booker.getId());
+                }
+            }
+        });
+
+        assertEquals(0, bookingRepository.count());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportThroughputByThreadCount() throws Exception {
+        Duration duration = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 5));
+        List<Long> itemIds = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            User user = userRepository.save(User.builder().name("user").email(i + "@bench").build());
+            userIds.add(user.getId());
+            itemIds.add(itemRepository.save(Item.builder().name("item " + i).description("bench").available(true)
+                .user(user).build()).getId());
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("available processors: %d%n", cores);
+        for (int threads = 1; threads <= Math.max(cores * 2, 2); threads *= 2) {
+            LongAdder operations = new LongAdder();
+            AtomicBoolean running = new AtomicBoolean(true);
+            long started = System.nanoTime();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(Thread.ofPlatform().start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        int choice = random.nextInt(10);
+                        Long userId = userIds.get(random.nextInt(userIds.size()));
+                        if (choice < 2) {
+                            Long itemId = itemIds.get(random.nextInt(itemIds.size()));
+                            LocalDateTime start = EPOCH.plusMinutes(random.nextInt(1_000_000));
+                            bookingRepository.save(Booking.builder().start(start).end(start.plusHours(1))
+                                .item(Item.builder().id(itemId).build()).booker(User.builder().id(userId).build())
+                                .status(Status.WAITING).build());
+                        } else if (choice < 6) {
+                            assertNotNull(itemRepository.findAllByUserId(userId));
+                        } else {
+                            assertTrue(userRepository.findById(userId).isPresent());
+                        }
+                        operations.increment();
+                    }
+                }));
+            }
+            Thread.sleep(duration.toMillis());
+            running.set(false);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("threads: %3d  %,12.0f ops/s%n", threads, operations.sum() / seconds);
+        }
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
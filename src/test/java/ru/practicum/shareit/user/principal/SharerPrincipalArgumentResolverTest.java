@@ -0,0 +1,101 @@
+package ru.practicum.shareit.user.principal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class SharerPrincipalArgumentResolverTest {
+    private static final long UNKNOWN_USER_ID = 1_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @SpyBean
+    private UserRepository userRepository;
+    private long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserDto userDto = UserDto.builder().name("sharer").email("sharer" + System.nanoTime() + "@javabeans.com")
+            .build();
+        String created = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        userId = objectMapper.readTree(created).get("id").asLong();
+    }
+
+    @Test
+    void unknownUserIsRejectedWithNotFound() throws Exception {
+        mockMvc.perform(postItem(UNKNOWN_USER_ID)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/bookings/owner").header(SharerPrincipal.HEADER, UNKNOWN_USER_ID))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void existenceChecksAreCachedAcrossRequests() throws Exception {
+        clearInvocations(userRepository);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/bookings/owner").header(SharerPrincipal.HEADER, userId)).andExpect(status().isOk());
+            mockMvc.perform(get("/bookings/owner").header(SharerPrincipal.HEADER, UNKNOWN_USER_ID + 1))
+                .andExpect(status().isNotFound());
+        }
+        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).existsById(UNKNOWN_USER_ID + 1);
+    }
+
+    @Test
+    void deletedUserIsRejected() throws Exception {
+        mockMvc.perform(postItem(userId)).andExpect(status().isOk());
+        mockMvc.perform(delete("/users/{userId}", userId)).andExpect(status().isOk());
+        mockMvc.perform(postItem(userId)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void missingOrMalformedHeaderIsBadRequest() throws Exception {
+        mockMvc.perform(get("/bookings/owner")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/bookings/owner").header(SharerPrincipal.HEADER, "abc"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nonPositiveUserIdIsBadRequestWithoutLookup() throws Exception {
+        clearInvocations(userRepository);
+        mockMvc.perform(postItem(0)).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/bookings/owner").header(SharerPrincipal.HEADER, -1))
+            .andExpect(status().isBadRequest());
+        verify(userRepository, never()).existsById(any());
+    }
+
+    private RequestBuilder postItem(long sharerId) throws Exception {
+        ItemDto itemDto = ItemDto.builder().name("ladder").description("three metres").available(true).build();
+        return post("/items").header(SharerPrincipal.HEADER, sharerId).contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(itemDto));
+    }
+}